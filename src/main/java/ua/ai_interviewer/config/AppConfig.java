@@ -2,35 +2,51 @@ package ua.ai_interviewer.config;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
-import ua.ai_interviewer.service.TelegramBotService;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Slf4j
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties(TelegramBotsProperties.class)
 @RequiredArgsConstructor
 public class AppConfig {
 
     @Bean
-    public TelegramBotsApi telegramBotsApi(TelegramBotService telegramBotService) {
-        TelegramBotsApi telegramBotsApi = null;
-        try {
-            telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
-            telegramBotsApi.registerBot(telegramBotService);
-        } catch (TelegramApiException e) {
-            log.error("telegram beans creating error", e);
-        }
+    @Profile("!replay")
+    public TelegramBotsApi telegramBotsApi() throws TelegramApiException {
+        return new TelegramBotsApi(DefaultBotSession.class);
+    }
 
-        return telegramBotsApi;
+    @Bean
+    public ConnectionProvider connectionProvider(@Value("${http.client.max-connections:200}") int maxConnections,
+                                                 @Value("${http.client.max-idle-seconds:30}") int maxIdleSeconds) {
+        return ConnectionProvider.builder("upstream")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxConnections * 4)
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .build();
     }
 
     @Bean
-    public WebClient webClient() {
-        return WebClient.create();
+    public WebClient webClient(ConnectionProvider connectionProvider) {
+        HttpClient httpClient = HttpClient.create(connectionProvider).compress(true);
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
     }
 
 }
\ No newline at end of file
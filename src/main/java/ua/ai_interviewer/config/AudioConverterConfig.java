@@ -5,7 +5,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import ua.ai_interviewer.converter.AudioConverter;
 import ua.ai_interviewer.converter.CustomFFMPEGLocator;
-import ws.schild.jave.Encoder;
+import ua.ai_interviewer.converter.OggOpusDecoder;
+import ua.ai_interviewer.converter.OggOpusEncoder;
+import ua.ai_interviewer.converter.VoiceActivityDetector;
+import ua.ai_interviewer.converter.VoicePreprocessor;
+import ua.ai_interviewer.service.AudioBufferManager;
 import ws.schild.jave.process.ProcessLocator;
 
 @Configuration
@@ -14,6 +18,22 @@ public class AudioConverterConfig {
     private String winPath;
     @Value("${ffmpeg.path.linux}")
     private String linPath;
+    @Value("${audio.vad.frame-millis:30}")
+    private int vadFrameMillis;
+    @Value("${audio.vad.energy-threshold-db:-45}")
+    private double vadEnergyThresholdDb;
+    @Value("${audio.vad.min-silence-millis:700}")
+    private int vadMinSilenceMillis;
+    @Value("${audio.vad.padding-millis:200}")
+    private int vadPaddingMillis;
+    @Value("${audio.vad.min-speech-millis:90}")
+    private int vadMinSpeechMillis;
+    @Value("${transcription.segmented.chunk-seconds:60}")
+    private int chunkSeconds;
+    @Value("${transcription.segmented.overlap-millis:1500}")
+    private int chunkOverlapMillis;
+    @Value("${audio.opus.in-jvm.enabled:true}")
+    private boolean inJvmOpusEnabled;
 
 
     @Bean
@@ -28,13 +48,30 @@ public class AudioConverterConfig {
     }
 
     @Bean
-    public Encoder encoder() {
-        return new Encoder(processLocator());
+    public AudioConverter audioConverter() {
+        return new AudioConverter(processLocator());
     }
 
     @Bean
-    public AudioConverter audioConverter() {
-        return new AudioConverter(processLocator(), encoder());
+    public VoiceActivityDetector voiceActivityDetector() {
+        return new VoiceActivityDetector(vadFrameMillis, vadEnergyThresholdDb,
+                vadMinSilenceMillis, vadPaddingMillis, vadMinSpeechMillis);
+    }
+
+    @Bean
+    public OggOpusDecoder oggOpusDecoder(AudioBufferManager audioBufferManager) {
+        return new OggOpusDecoder(audioBufferManager, inJvmOpusEnabled);
+    }
+
+    @Bean
+    public OggOpusEncoder oggOpusEncoder() {
+        return new OggOpusEncoder();
+    }
+
+    @Bean
+    public VoicePreprocessor voicePreprocessor(AudioBufferManager audioBufferManager) {
+        return new VoicePreprocessor(audioConverter(), oggOpusDecoder(audioBufferManager), oggOpusEncoder(),
+                voiceActivityDetector(), audioBufferManager, chunkSeconds, chunkOverlapMillis);
     }
 
 }
@@ -0,0 +1,29 @@
+package ua.ai_interviewer.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import ua.ai_interviewer.controller.ReplayUpstreamHandler;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration
+@Profile("replay")
+public class ReplayConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> replayUpstreams(ReplayUpstreamHandler handler) {
+        return route()
+                .POST("/replay/telegram/bot{token}/sendVoice", contentType(MediaType.MULTIPART_FORM_DATA),
+                        handler::telegramSendVoice)
+                .POST("/replay/telegram/bot{token}/{method}", handler::telegramMethod)
+                .GET("/replay/telegram/file/bot{token}/voice/{name}", handler::telegramDownload)
+                .POST("/replay/openai/v1/audio/transcriptions", handler::transcription)
+                .POST("/replay/openai/v1/chat/completions", handler::chatCompletion)
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package ua.ai_interviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ua.ai_interviewer.dto.telegram.BotDefinition;
+
+import java.util.List;
+
+/**
+ * The bots served by this instance. {@code telegram.bots[n].*} defines several bots; without
+ * them the single bot of {@code telegram.bot.token} and {@code telegram.bot.username} is served
+ * under the name {@link BotDefinition#DEFAULT_NAME}.
+ *
+ * @param bots The bot definitions, the first one owns data created before bots had names.
+ * @param bot  The single bot of older configurations.
+ */
+@ConfigurationProperties("telegram")
+public record TelegramBotsProperties(List<BotDefinition> bots, BotDefinition bot) {
+
+    public List<BotDefinition> definitions() {
+        if (bots != null && !bots.isEmpty()) {
+            return bots;
+        }
+        if (bot == null || bot.token() == null || bot.token().isBlank()) {
+            throw new IllegalStateException("No bot is configured, set telegram.bot.token or telegram.bots");
+        }
+        return List.of(bot);
+    }
+
+    public BotDefinition find(String name) {
+        return definitions().stream()
+                .filter(definition -> definition.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown bot " + name));
+    }
+
+    /**
+     * The bot that owns interviews and settings stored before bots had names.
+     */
+    public String legacyBot() {
+        return definitions().get(0).name();
+    }
+}
@@ -0,0 +1,32 @@
+package ua.ai_interviewer.config;
+
+import com.mongodb.client.MongoClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * The {@code training} profile starts the context at image build time, where there is no
+ * database. The Mongo client is replaced by one that fails every call, so the repositories
+ * and templates are created as usual but never reach a server, nor does the driver keep
+ * trying to connect to one in the background.
+ */
+@Configuration
+@Profile("training")
+public class TrainingConfig {
+
+    @Bean
+    public MongoClient mongoClient() {
+        return (MongoClient) Proxy.newProxyInstance(MongoClient.class.getClassLoader(),
+                new Class<?>[]{MongoClient.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> null;
+                    case "toString" -> "training MongoClient";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(
+                            "There is no database in the training run, " + method.getName() + " was called");
+                });
+    }
+}
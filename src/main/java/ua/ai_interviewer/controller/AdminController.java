@@ -0,0 +1,172 @@
+package ua.ai_interviewer.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ua.ai_interviewer.dto.admin.AudioBufferStatus;
+import ua.ai_interviewer.dto.admin.BotStatus;
+import ua.ai_interviewer.dto.admin.DegradationStatus;
+import ua.ai_interviewer.dto.admin.DrainStatus;
+import ua.ai_interviewer.dto.admin.ResponseCacheStatus;
+import ua.ai_interviewer.dto.admin.RuntimeStatus;
+import ua.ai_interviewer.dto.admin.SpeechToTextStatus;
+import ua.ai_interviewer.service.AudioBufferManager;
+import ua.ai_interviewer.service.DegradationController;
+import ua.ai_interviewer.service.DrainService;
+import ua.ai_interviewer.service.ResponseCache;
+import ua.ai_interviewer.service.RuntimeIntrospector;
+import ua.ai_interviewer.service.SpeechToTextRouter;
+import ua.ai_interviewer.service.TelegramBotBootstrap;
+import ua.ai_interviewer.service.TelegramBotRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Operational endpoints, enabled by setting {@code admin.token} and authorised by the
+ * {@code X-Admin-Token} header.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private static final String TOKEN_HEADER = "X-Admin-Token";
+    private static final Duration MIN_STREAM_INTERVAL = Duration.ofMillis(100);
+    private final DrainService drainService;
+    private final DegradationController degradationController;
+    private final TelegramBotRegistry telegramBotRegistry;
+    private final SpeechToTextRouter speechToTextRouter;
+    private final ResponseCache responseCache;
+    private final AudioBufferManager audioBufferManager;
+    private final RuntimeIntrospector runtimeIntrospector;
+    private final ObjectProvider<TelegramBotBootstrap> telegramBotBootstrap;
+    private final ApplicationContext applicationContext;
+    private final String adminToken;
+    private final Duration streamInterval;
+
+    public AdminController(DrainService drainService,
+                           DegradationController degradationController,
+                           TelegramBotRegistry telegramBotRegistry,
+                           SpeechToTextRouter speechToTextRouter,
+                           ResponseCache responseCache,
+                           AudioBufferManager audioBufferManager,
+                           RuntimeIntrospector runtimeIntrospector,
+                           ObjectProvider<TelegramBotBootstrap> telegramBotBootstrap,
+                           ApplicationContext applicationContext,
+                           @Value("${admin.token:}") String adminToken,
+                           @Value("${admin.runtime.stream-interval:PT1S}") Duration streamInterval) {
+        this.drainService = drainService;
+        this.degradationController = degradationController;
+        this.telegramBotRegistry = telegramBotRegistry;
+        this.speechToTextRouter = speechToTextRouter;
+        this.responseCache = responseCache;
+        this.audioBufferManager = audioBufferManager;
+        this.runtimeIntrospector = runtimeIntrospector;
+        this.telegramBotBootstrap = telegramBotBootstrap;
+        this.applicationContext = applicationContext;
+        this.adminToken = adminToken;
+        this.streamInterval = streamInterval;
+    }
+
+    @GetMapping("/drain")
+    public DrainStatus getDrainStatus(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        authorize(token);
+        return drainService.getStatus();
+    }
+
+    /**
+     * Starts draining and answers at once; with {@code exit}, the application exits when drained.
+     */
+    @PostMapping("/drain")
+    public DrainStatus drain(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+                             @RequestParam(defaultValue = "true") boolean exit) {
+        authorize(token);
+        Mono<Void> drained = drainService.drain();
+        if (exit) {
+            drained.publishOn(Schedulers.boundedElastic())
+                    .doFinally(signal -> {
+                        log.info("Exiting after drain requested by admin");
+                        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+                    })
+                    .subscribe();
+        }
+        return drainService.getStatus();
+    }
+
+    @GetMapping("/degradation")
+    public DegradationStatus getDegradationStatus(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        authorize(token);
+        return degradationController.getStatus();
+    }
+
+    @GetMapping("/bots")
+    public List<BotStatus> getBotStatus(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        authorize(token);
+        TelegramBotBootstrap bootstrap = telegramBotBootstrap.getIfAvailable();
+        return telegramBotRegistry.getStatus(bot -> bootstrap != null && bootstrap.isPolling(bot));
+    }
+
+    @GetMapping("/stt")
+    public List<SpeechToTextStatus> getSpeechToTextStatus(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        authorize(token);
+        return speechToTextRouter.getStatus();
+    }
+
+    @GetMapping("/response-cache")
+    public ResponseCacheStatus getResponseCacheStatus(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        authorize(token);
+        return responseCache.getStatus();
+    }
+
+    @GetMapping("/audio-buffers")
+    public AudioBufferStatus getAudioBufferStatus(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        authorize(token);
+        return audioBufferManager.getStatus();
+    }
+
+    @GetMapping("/runtime")
+    public RuntimeStatus getRuntimeStatus(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        authorize(token);
+        return runtimeIntrospector.snapshot();
+    }
+
+    /**
+     * The runtime status as server-sent events, every {@code admin.runtime.stream-interval}
+     * unless the {@code interval} parameter asks for another one of at least 100ms.
+     */
+    @GetMapping(value = "/runtime/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<RuntimeStatus>> streamRuntimeStatus(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @RequestParam(required = false) Duration interval) {
+        authorize(token);
+        Duration period = streamInterval;
+        if (interval != null) {
+            period = interval.compareTo(MIN_STREAM_INTERVAL) < 0 ? MIN_STREAM_INTERVAL : interval;
+        }
+        return runtimeIntrospector.stream(period)
+                .map(status -> ServerSentEvent.builder(status).event("runtime").build());
+    }
+
+    private void authorize(String token) {
+        if (adminToken.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        if (token == null || !MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+    }
+}
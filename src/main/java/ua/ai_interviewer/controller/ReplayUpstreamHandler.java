@@ -0,0 +1,143 @@
+package ua.ai_interviewer.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.dto.traffic.TrafficRecord;
+import ua.ai_interviewer.service.ReplayTimings;
+import ua.ai_interviewer.util.WavUtil;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ua.ai_interviewer.converter.AudioConverter.PCM_SAMPLE_RATE;
+
+/**
+ * Local stand-ins for the Telegram Bot API and the OpenAI API, used by the {@code replay}
+ * profile. Responses are synthetic and are delayed by the recorded upstream timings.
+ */
+@Component
+@Profile("replay")
+@RequiredArgsConstructor
+public class ReplayUpstreamHandler {
+
+    /**
+     * Rough size of one streamed completion chunk, used to turn recorded stream sizes into chunk counts.
+     */
+    private static final int STREAM_CHUNK_BYTES = 150;
+    private static final String WORD = "replay ";
+
+    private final ReplayTimings replayTimings;
+    private final AtomicInteger messageIds = new AtomicInteger();
+
+    public Mono<ServerResponse> telegramMethod(ServerRequest request) {
+        String method = request.pathVariable("method");
+        return request.bodyToMono(Map.class)
+                .defaultIfEmpty(Map.of())
+                .flatMap(body -> switch (method) {
+                    case "getFile" -> ok(file(String.valueOf(body.get("file_id"))));
+                    case "sendMessage", "editMessageText" -> ok(message(body.get("chat_id")));
+                    default -> ok(true);
+                });
+    }
+
+    public Mono<ServerResponse> telegramSendVoice(ServerRequest request) {
+        TrafficRecord stage = replayTimings.next("telegram.send-voice");
+        return request.multipartData()
+                .delayElement(replayTimings.scale(stage.millis()))
+                .flatMap(parts -> ok(message(parts.getFirst("chat_id"))));
+    }
+
+    public Mono<ServerResponse> telegramDownload(ServerRequest request) {
+        TrafficRecord stage = replayTimings.next("telegram.download");
+        String name = request.pathVariable("name");
+        int seconds = Integer.parseInt(name.substring(name.lastIndexOf('-') + 1, name.lastIndexOf('.')));
+        return Mono.delay(replayTimings.scale(stage.millis()))
+                .then(ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .bodyValue(WavUtil.encodePcm16(speechLike(seconds), PCM_SAMPLE_RATE)));
+    }
+
+    public Mono<ServerResponse> transcription(ServerRequest request) {
+        TrafficRecord stage = replayTimings.next("whisper");
+        return request.multipartData()
+                .delayElement(replayTimings.scale(stage.millis()))
+                .flatMap(parts -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(Map.of("text", words(stage.received()))));
+    }
+
+    public Mono<ServerResponse> chatCompletion(ServerRequest request) {
+        return request.bodyToMono(Map.class).flatMap(body -> {
+            if (Boolean.TRUE.equals(body.get("stream"))) {
+                TrafficRecord stage = replayTimings.next("chat.stream");
+                int chunks = (int) Math.max(1, stage.received() / STREAM_CHUNK_BYTES);
+                Duration interval = replayTimings.scale(stage.millis() / chunks);
+                Flux<ServerSentEvent<String>> events = Flux.interval(interval)
+                        .take(chunks)
+                        .map(tick -> ServerSentEvent.builder(
+                                "{\"choices\":[{\"delta\":{\"content\":\"" + WORD + "\"}}]}").build())
+                        .concatWith(Mono.just(ServerSentEvent.builder("[DONE]").build()));
+                return ServerResponse.ok()
+                        .contentType(MediaType.TEXT_EVENT_STREAM)
+                        .body(events, ServerSentEvent.class);
+            }
+            TrafficRecord stage = replayTimings.next("chat");
+            Map<String, Object> completion = Map.of(
+                    "model", "replay",
+                    "choices", List.of(Map.of("message", Map.of(
+                            "role", "assistant",
+                            "content", words(stage.received())))));
+            return Mono.delay(replayTimings.scale(stage.millis()))
+                    .then(ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(completion));
+        });
+    }
+
+    private static Mono<ServerResponse> ok(Object result) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("ok", true, "result", result));
+    }
+
+    private static Map<String, Object> file(String fileId) {
+        return Map.of(
+                "file_id", fileId,
+                "file_unique_id", fileId,
+                "file_path", "voice/" + fileId + ".oga");
+    }
+
+    private Map<String, Object> message(Object chatId) {
+        return Map.of(
+                "message_id", messageIds.incrementAndGet(),
+                "date", Instant.now().getEpochSecond(),
+                "chat", Map.of("id", Long.valueOf(String.valueOf(chatId)), "type", "private"));
+    }
+
+    private static String words(long bytes) {
+        return WORD.repeat((int) Math.max(1, bytes / WORD.length())).strip();
+    }
+
+    /**
+     * A tone in syllable-long bursts, loud enough to pass voice activity detection.
+     */
+    private static short[] speechLike(int seconds) {
+        short[] samples = new short[Math.max(1, seconds) * PCM_SAMPLE_RATE];
+        int syllable = PCM_SAMPLE_RATE * 3 / 10;
+        int pause = PCM_SAMPLE_RATE / 10;
+        for (int i = 0; i < samples.length; i++) {
+            if (i % (syllable + pause) < syllable) {
+                samples[i] = (short) (8000 * Math.sin(2 * Math.PI * 220 * i / PCM_SAMPLE_RATE));
+            }
+        }
+        return samples;
+    }
+}
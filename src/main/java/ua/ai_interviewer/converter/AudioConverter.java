@@ -2,6 +2,9 @@ package ua.ai_interviewer.converter;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import ua.ai_interviewer.exception.AudioConversionException;
+import ua.ai_interviewer.service.CancellationToken;
 import ws.schild.jave.Encoder;
 import ws.schild.jave.EncoderException;
 import ws.schild.jave.InputFormatException;
@@ -16,33 +19,51 @@ import java.io.File;
 @RequiredArgsConstructor
 public class AudioConverter {
 
+    public static final int PCM_SAMPLE_RATE = 16000;
     private final ProcessLocator locator;
-    private final Encoder encoder;
 
 
-    public File convertToMp3(File source, String targetName) {
+    public File decodeToWav(File source, String targetName, CancellationToken token) {
         AudioAttributes audio = new AudioAttributes();
-        audio.setCodec("libmp3lame");
-        audio.setBitRate(128000);
-        audio.setChannels(2);
-        audio.setSamplingRate(44100);
+        audio.setCodec("pcm_s16le");
+        audio.setChannels(1);
+        audio.setSamplingRate(PCM_SAMPLE_RATE);
 
         EncodingAttributes attrs = new EncodingAttributes();
-        attrs.setOutputFormat("mp3");
+        attrs.setOutputFormat("wav");
         attrs.setAudioAttributes(audio);
-        log.debug("Set custom ffmpeg location ");
 
+        File file = new File(targetName + ".wav");
+        encode(source, file, attrs, token);
+        log.debug("Successful decoded and create new file {}", file.getAbsolutePath());
 
-        File file = new File(targetName + ".mp3");
+        return file;
+    }
+
+    /**
+     * Each conversion gets its own encoder, so cancelling the turn kills only its ffmpeg process.
+     *
+     * @throws AudioConversionException If ffmpeg fails on the source.
+     */
+    private void encode(File source, File target, EncodingAttributes attrs, CancellationToken token) {
+        token.throwIfCancelled();
+        Encoder encoder = new Encoder(locator);
+        Disposable abort = token.onCancel(encoder::abortEncoding);
         try {
-            encoder.encode(new MultimediaObject(source, locator), file, attrs);
-            log.debug("Successful converted and create new file {}", file.getAbsolutePath());
-        } catch (InputFormatException e) {
-            log.error("The source multimedia file cannot be decoded.", e);
+            encoder.encode(new MultimediaObject(source, locator), target, attrs);
         } catch (EncoderException e) {
-            log.error("Problems occurs during the encoding process", e);
+            // a partly written target would pass for the result
+            if (!target.delete() && target.exists()) {
+                log.warn("Unable to delete partly converted file {}", target.getAbsolutePath());
+            }
+            // an aborted encoding fails too
+            token.throwIfCancelled();
+            throw new AudioConversionException(e instanceof InputFormatException
+                    ? "The source multimedia file " + source.getName() + " cannot be decoded"
+                    : "Problems occurs during the encoding of " + source.getName(), e);
+        } finally {
+            abort.dispose();
         }
-
-        return file;
+        token.throwIfCancelled();
     }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package ua.ai_interviewer.converter;
+
+import ua.ai_interviewer.dto.audio.AudioSegment;
+import ua.ai_interviewer.dto.audio.OggPacket;
+import ua.ai_interviewer.service.AudioBuffer;
+import ua.ai_interviewer.util.OggUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An OGG Opus voice decoded by {@link OggOpusDecoder}: its PCM for analysis and its
+ * original packets, so that the speech can be cut out without encoding it again.
+ */
+public final class DecodedOpus implements AutoCloseable {
+
+    private final int serial;
+    private final List<ByteBuffer> headers;
+    private final List<ByteBuffer> packets;
+    private final int[] packetStarts;
+    private final int[] packetSamples;
+    private final AudioBuffer ogg;
+    private final AudioBuffer pcm;
+    private final int samples;
+
+    /**
+     * @param packetStarts  The first PCM sample decoded from each packet.
+     * @param packetSamples The duration of each packet in 48 kHz samples, the unit of Opus granule positions.
+     * @param ogg           The file content the headers and packets are views of.
+     * @param samples       The number of PCM samples decoded into the buffer.
+     */
+    DecodedOpus(int serial, List<ByteBuffer> headers, List<ByteBuffer> packets, int[] packetStarts,
+                int[] packetSamples, AudioBuffer ogg, AudioBuffer pcm, int samples) {
+        this.serial = serial;
+        this.headers = headers;
+        this.packets = packets;
+        this.packetStarts = packetStarts;
+        this.packetSamples = packetSamples;
+        this.ogg = ogg;
+        this.pcm = pcm;
+        this.samples = samples;
+    }
+
+    /**
+     * The 16-bit mono PCM, valid until closed.
+     */
+    public ShortBuffer samples() {
+        return pcm.nioBuffer().slice(0, samples * 2).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    }
+
+    /**
+     * Writes the packets overlapping the segments, in order, as an OGG Opus file. The cuts
+     * fall on packet boundaries, so up to a packet of audio around each segment is kept.
+     * The granule positions count the pre-skip of the header, as RFC 7845 requires.
+     */
+    public void writeOgg(File target, List<AudioSegment> segments) throws IOException {
+        List<OggPacket> kept = new ArrayList<>();
+        long granule = preSkip();
+        int segment = 0;
+        for (int i = 0; i < packets.size() && segment < segments.size(); i++) {
+            int end = i + 1 < packets.size() ? packetStarts[i + 1] : samples;
+            while (segment < segments.size() && segments.get(segment).endSample() <= packetStarts[i]) {
+                segment++;
+            }
+            if (segment < segments.size() && segments.get(segment).startSample() < end) {
+                granule += packetSamples[i];
+                kept.add(new OggPacket(packets.get(i), granule));
+            }
+        }
+        OggUtil.writePackets(target, serial, headers, kept);
+    }
+
+    private int preSkip() {
+        ByteBuffer head = headers.get(0);
+        return head.duplicate().order(ByteOrder.LITTLE_ENDIAN).getShort(head.position() + 10) & 0xFFFF;
+    }
+
+    @Override
+    public void close() {
+        pcm.release();
+        ogg.release();
+    }
+}
@@ -0,0 +1,190 @@
+package ua.ai_interviewer.converter;
+
+import io.github.jaredmdobson.concentus.OpusDecoder;
+import io.github.jaredmdobson.concentus.OpusException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.dto.audio.OggStream;
+import ua.ai_interviewer.exception.TurnCancelledException;
+import ua.ai_interviewer.service.AudioBuffer;
+import ua.ai_interviewer.service.AudioBufferManager;
+import ua.ai_interviewer.service.CancellationToken;
+import ua.ai_interviewer.util.OggUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static ua.ai_interviewer.converter.AudioConverter.PCM_SAMPLE_RATE;
+
+/**
+ * Decodes OGG Opus voices, the format of Telegram voice notes, inside the JVM, so most
+ * voices are analysed without starting an ffmpeg process. Other formats, multichannel
+ * streams and voices the decoder fails on are left to ffmpeg.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OggOpusDecoder {
+
+    private static final byte[] OPUS_HEAD = "OpusHead".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OPUS_TAGS = "OpusTags".getBytes(StandardCharsets.US_ASCII);
+    private static final int GRANULE_RATE = 48000;
+    private static final int MAX_FRAME_SAMPLES = PCM_SAMPLE_RATE * 120 / 1000;
+    private static final int CANCELLATION_CHECK_PACKETS = 250;
+    private static final int MAX_PACKET_BYTES = 1275 * 3;
+
+    private final AudioBufferManager audioBufferManager;
+    private final boolean enabled;
+
+    /**
+     * Decodes the voice to 16 kHz mono PCM on the bounded elastic scheduler.
+     *
+     * @return The decoded voice, to be closed by the caller, or empty if ffmpeg is to handle it.
+     */
+    public Mono<DecodedOpus> decode(File source, CancellationToken token) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.usingWhen(audioBufferManager.read(source),
+                        ogg -> Mono.justOrEmpty(readOpus(ogg, source))
+                                .flatMap(stream -> decode(stream, ogg, source, token)),
+                        ogg -> Mono.fromRunnable(ogg::release))
+                .doOnDiscard(DecodedOpus.class, DecodedOpus::close);
+    }
+
+    private Optional<OggStream> readOpus(AudioBuffer ogg, File source) {
+        OggStream stream;
+        try {
+            stream = OggUtil.readPackets(ogg.nioBuffer(), source.getName());
+        } catch (IOException e) {
+            log.debug("Voice {} is left to ffmpeg: {}", source.getName(), e.getMessage());
+            return Optional.empty();
+        }
+        List<ByteBuffer> packets = stream.packets();
+        if (packets.size() < 2 || !startsWith(packets.get(0), OPUS_HEAD) || !startsWith(packets.get(1), OPUS_TAGS)) {
+            log.debug("Voice {} is not OGG Opus, left to ffmpeg", source.getName());
+            return Optional.empty();
+        }
+        if (!isSingleStream(packets.get(0))) {
+            log.debug("Voice {} uses an unsupported Opus channel mapping, left to ffmpeg", source.getName());
+            return Optional.empty();
+        }
+        return Optional.of(stream);
+    }
+
+    /**
+     * The PCM buffer is emitted on the bounded elastic scheduler, which the packets are decoded on.
+     * The packets are views of the file content, which the decoded voice keeps a reference to.
+     */
+    private Mono<DecodedOpus> decode(OggStream stream, AudioBuffer ogg, File source, CancellationToken token) {
+        List<ByteBuffer> packets = stream.packets();
+        List<ByteBuffer> audio = packets.subList(2, packets.size());
+        int[] packetSamples = new int[audio.size()];
+        long total = 0;
+        for (int i = 0; i < audio.size(); i++) {
+            packetSamples[i] = packetSamples(audio.get(i));
+            total += packetSamples[i];
+        }
+        int capacity = Math.toIntExact(total * PCM_SAMPLE_RATE / GRANULE_RATE);
+        return audioBufferManager.allocate(capacity * 2).handle((pcm, sink) -> {
+            try {
+                DecodedOpus decoded = decode(stream.serial(), packets.subList(0, 2), audio, packetSamples, ogg, pcm,
+                        capacity, source, token);
+                ogg.retain();
+                sink.next(decoded);
+            } catch (TurnCancelledException e) {
+                pcm.release();
+                sink.error(e);
+            } catch (OpusException | RuntimeException e) {
+                // the decoder may also fail with runtime exceptions on malformed packets
+                pcm.release();
+                log.warn("In-JVM decoding of voice {} failed, falling back to ffmpeg: {}",
+                        source.getName(), e.getMessage());
+            }
+        });
+    }
+
+    private DecodedOpus decode(int serial, List<ByteBuffer> headers, List<ByteBuffer> audio, int[] packetSamples,
+                               AudioBuffer ogg, AudioBuffer pcm, int capacity, File source, CancellationToken token)
+            throws OpusException {
+        OpusDecoder decoder = new OpusDecoder(PCM_SAMPLE_RATE, 1);
+        ShortBuffer out = pcm.nioBuffer().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        short[] frame = new short[MAX_FRAME_SAMPLES];
+        // the decoder reads arrays only, the file content is direct memory
+        byte[] packetBytes = new byte[MAX_PACKET_BYTES];
+        int[] packetStarts = new int[audio.size()];
+        for (int i = 0; i < audio.size(); i++) {
+            if (i % CANCELLATION_CHECK_PACKETS == 0) {
+                token.throwIfCancelled();
+            }
+            packetStarts[i] = out.position();
+            ByteBuffer packet = audio.get(i);
+            if (packet.remaining() > packetBytes.length) {
+                packetBytes = new byte[packet.remaining()];
+            }
+            packet.get(packet.position(), packetBytes, 0, packet.remaining());
+            int decoded = decoder.decode(packetBytes, 0, packet.remaining(), frame, 0, MAX_FRAME_SAMPLES, false);
+            out.put(frame, 0, Math.min(decoded, out.remaining()));
+        }
+        log.debug("Decoded voice {} of {} packets to {} samples in the JVM", source.getName(), audio.size(),
+                out.position());
+        return new DecodedOpus(serial, List.copyOf(headers), List.copyOf(audio), packetStarts, packetSamples, ogg,
+                pcm, Math.min(out.position(), capacity));
+    }
+
+    /**
+     * The duration of a packet in 48 kHz samples, from its table-of-contents byte (RFC 6716, 3.1).
+     */
+    static int packetSamples(ByteBuffer packet) {
+        if (!packet.hasRemaining()) {
+            return 0;
+        }
+        int toc = packet.get(packet.position()) & 0xFF;
+        int config = toc >> 3;
+        int frameSamples;
+        if (config < 12) {
+            frameSamples = new int[]{480, 960, 1920, 2880}[config & 3];
+        } else if (config < 16) {
+            frameSamples = (config & 1) == 0 ? 480 : 960;
+        } else {
+            frameSamples = new int[]{120, 240, 480, 960}[config & 3];
+        }
+        int frames = switch (toc & 3) {
+            case 0 -> 1;
+            case 1, 2 -> 2;
+            default -> packet.remaining() < 2 ? 0 : packet.get(packet.position() + 1) & 0x3F;
+        };
+        return frameSamples * frames;
+    }
+
+    /**
+     * Whether the identification header (RFC 7845, 5.1) describes a mono or stereo voice carried
+     * in a single Opus stream, the only layout a plain Opus decoder can downmix.
+     */
+    static boolean isSingleStream(ByteBuffer head) {
+        if (head.remaining() < 19) {
+            return false;
+        }
+        int start = head.position();
+        int channels = head.get(start + 9) & 0xFF;
+        if (channels < 1 || channels > 2) {
+            return false;
+        }
+        return switch (head.get(start + 18)) {
+            case 0 -> true;
+            case 1 -> head.remaining() >= 21 + channels && head.get(start + 19) == 1;
+            default -> false;
+        };
+    }
+
+    private static boolean startsWith(ByteBuffer packet, byte[] prefix) {
+        return packet.remaining() >= prefix.length
+                && packet.slice(packet.position(), prefix.length).equals(ByteBuffer.wrap(prefix));
+    }
+}
@@ -0,0 +1,116 @@
+package ua.ai_interviewer.converter;
+
+import io.github.jaredmdobson.concentus.OpusApplication;
+import io.github.jaredmdobson.concentus.OpusEncoder;
+import io.github.jaredmdobson.concentus.OpusException;
+import lombok.extern.slf4j.Slf4j;
+import ua.ai_interviewer.dto.audio.AudioSegment;
+import ua.ai_interviewer.dto.audio.OggPacket;
+import ua.ai_interviewer.enums.AudioProfile;
+import ua.ai_interviewer.exception.AudioConversionException;
+import ua.ai_interviewer.service.CancellationToken;
+import ua.ai_interviewer.util.OggUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.github.jaredmdobson.concentus.OpusSignal.OPUS_SIGNAL_VOICE;
+import static ua.ai_interviewer.converter.AudioConverter.PCM_SAMPLE_RATE;
+
+/**
+ * Encodes 16 kHz mono PCM to OGG Opus inside the JVM, so a voice ffmpeg had to decode is
+ * not handed to a second ffmpeg process to be encoded for the upload.
+ */
+@Slf4j
+public class OggOpusEncoder {
+
+    private static final byte[] OPUS_HEAD = "OpusHead".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OPUS_TAGS = "OpusTags".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VENDOR = "concentus".getBytes(StandardCharsets.US_ASCII);
+    private static final int GRANULE_RATE = 48000;
+    private static final int FRAME_SAMPLES = PCM_SAMPLE_RATE * 20 / 1000;
+    private static final int MAX_PACKET_BYTES = 1275;
+    private static final int CANCELLATION_CHECK_PACKETS = 250;
+
+    /**
+     * Writes the given segments of the samples, in order, as a mono OGG Opus file at the
+     * profile's bit rate.
+     *
+     * @throws AudioConversionException If the encoder fails.
+     */
+    public void encode(File target, ShortBuffer samples, List<AudioSegment> segments, AudioProfile profile,
+                       CancellationToken token) throws IOException {
+        OpusEncoder encoder;
+        try {
+            encoder = new OpusEncoder(PCM_SAMPLE_RATE, 1, OpusApplication.OPUS_APPLICATION_VOIP);
+        } catch (OpusException e) {
+            throw new AudioConversionException("Unable to create the Opus encoder for " + target.getName(), e);
+        }
+        encoder.setBitrate(profile.getBitRate());
+        encoder.setSignalType(OPUS_SIGNAL_VOICE);
+        int preSkip = encoder.getLookahead() * (GRANULE_RATE / PCM_SAMPLE_RATE);
+
+        int total = segments.stream().mapToInt(AudioSegment::length).sum();
+        int frames = (total + FRAME_SAMPLES - 1) / FRAME_SAMPLES;
+        List<OggPacket> packets = new ArrayList<>(frames);
+        short[] frame = new short[FRAME_SAMPLES];
+        byte[] packet = new byte[MAX_PACKET_BYTES];
+        int segment = 0;
+        int offset = segments.isEmpty() ? 0 : segments.get(0).startSample();
+        for (int i = 0; i < frames; i++) {
+            if (i % CANCELLATION_CHECK_PACKETS == 0) {
+                token.throwIfCancelled();
+            }
+            // a frame may take samples of several segments, the last one is padded with silence
+            int filled = 0;
+            while (filled < FRAME_SAMPLES && segment < segments.size()) {
+                int count = Math.min(FRAME_SAMPLES - filled, segments.get(segment).endSample() - offset);
+                samples.get(offset, frame, filled, count);
+                filled += count;
+                offset += count;
+                if (offset == segments.get(segment).endSample() && ++segment < segments.size()) {
+                    offset = segments.get(segment).startSample();
+                }
+            }
+            Arrays.fill(frame, filled, FRAME_SAMPLES, (short) 0);
+            int size;
+            try {
+                size = encoder.encode(frame, 0, FRAME_SAMPLES, packet, 0, packet.length);
+            } catch (OpusException e) {
+                throw new AudioConversionException("Opus encoding of " + target.getName() + " failed", e);
+            }
+            // the granule of the last packet leaves the padding out
+            long decoded = Math.min((long) (i + 1) * FRAME_SAMPLES, total);
+            packets.add(new OggPacket(ByteBuffer.wrap(Arrays.copyOf(packet, size)),
+                    preSkip + decoded * (GRANULE_RATE / PCM_SAMPLE_RATE)));
+        }
+        OggUtil.writePackets(target, target.getName().hashCode(), List.of(head(preSkip), tags()), packets);
+        log.debug("Encoded {} samples of {} to {} Opus packets in the JVM", total, target.getName(), frames);
+    }
+
+    /**
+     * The identification header (RFC 7845, 5.1) of a mono stream.
+     */
+    private static ByteBuffer head(int preSkip) {
+        return ByteBuffer.allocate(19).order(ByteOrder.LITTLE_ENDIAN)
+                .put(OPUS_HEAD).put((byte) 1).put((byte) 1).putShort((short) preSkip)
+                .putInt(PCM_SAMPLE_RATE).putShort((short) 0).put((byte) 0)
+                .flip();
+    }
+
+    /**
+     * The comment header (RFC 7845, 5.2), with the vendor only.
+     */
+    private static ByteBuffer tags() {
+        return ByteBuffer.allocate(OPUS_TAGS.length + 4 + VENDOR.length + 4).order(ByteOrder.LITTLE_ENDIAN)
+                .put(OPUS_TAGS).putInt(VENDOR.length).put(VENDOR).putInt(0)
+                .flip();
+    }
+}
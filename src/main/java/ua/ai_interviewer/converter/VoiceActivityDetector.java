@@ -0,0 +1,81 @@
+package ua.ai_interviewer.converter;
+
+import lombok.RequiredArgsConstructor;
+import ua.ai_interviewer.dto.audio.AudioSegment;
+
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frame-based energy voice activity detector for 16-bit mono PCM.
+ * Frames louder than the threshold are speech, silences shorter than
+ * {@code minSilenceMillis} are kept and every speech segment is padded.
+ */
+@RequiredArgsConstructor
+public class VoiceActivityDetector {
+
+    private static final double FULL_SCALE = Short.MAX_VALUE;
+
+    private final int frameMillis;
+    private final double energyThresholdDb;
+    private final int minSilenceMillis;
+    private final int paddingMillis;
+    private final int minSpeechMillis;
+
+    public List<AudioSegment> detectSpeech(ShortBuffer samples, int sampleRate) {
+        int frameSize = Math.max(1, sampleRate * frameMillis / 1000);
+        int minSilenceFrames = Math.max(1, minSilenceMillis / frameMillis);
+        int padding = sampleRate * paddingMillis / 1000;
+
+        List<AudioSegment> segments = new ArrayList<>();
+        int speechStart = -1;
+        int lastSpeechEnd = -1;
+        for (int start = 0; start < samples.limit(); start += frameSize) {
+            int end = Math.min(samples.limit(), start + frameSize);
+            if (energyDb(samples, start, end) < energyThresholdDb) {
+                continue;
+            }
+            if (speechStart < 0) {
+                speechStart = start;
+            } else if ((start - lastSpeechEnd) / frameSize >= minSilenceFrames) {
+                segments.add(new AudioSegment(speechStart, lastSpeechEnd));
+                speechStart = start;
+            }
+            lastSpeechEnd = end;
+        }
+        if (speechStart >= 0) {
+            segments.add(new AudioSegment(speechStart, lastSpeechEnd));
+        }
+
+        return pad(segments, padding, samples.limit(), sampleRate);
+    }
+
+    private List<AudioSegment> pad(List<AudioSegment> segments, int padding, int length, int sampleRate) {
+        int minSpeech = sampleRate * minSpeechMillis / 1000;
+        List<AudioSegment> padded = new ArrayList<>();
+        for (AudioSegment segment : segments) {
+            if (segment.length() < minSpeech) {
+                continue;
+            }
+            int start = Math.max(0, segment.startSample() - padding);
+            int end = Math.min(length, segment.endSample() + padding);
+            if (!padded.isEmpty() && padded.get(padded.size() - 1).endSample() >= start) {
+                AudioSegment previous = padded.remove(padded.size() - 1);
+                start = previous.startSample();
+            }
+            padded.add(new AudioSegment(start, end));
+        }
+        return padded;
+    }
+
+    private static double energyDb(ShortBuffer samples, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            double sample = samples.get(i) / FULL_SCALE;
+            sum += sample * sample;
+        }
+        double rms = Math.sqrt(sum / Math.max(1, to - from));
+        return rms == 0 ? Double.NEGATIVE_INFINITY : 20 * Math.log10(rms);
+    }
+}
@@ -0,0 +1,234 @@
+package ua.ai_interviewer.converter;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ua.ai_interviewer.dto.audio.AudioSegment;
+import ua.ai_interviewer.dto.audio.TrimmedAudio;
+import ua.ai_interviewer.enums.AudioProfile;
+import ua.ai_interviewer.exception.NoSpeechDetectedException;
+import ua.ai_interviewer.service.AudioBuffer;
+import ua.ai_interviewer.service.AudioBufferManager;
+import ua.ai_interviewer.service.CancellationToken;
+import ua.ai_interviewer.util.WavUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ua.ai_interviewer.converter.AudioConverter.PCM_SAMPLE_RATE;
+
+@Slf4j
+public class VoicePreprocessor {
+
+    private final AudioConverter audioConverter;
+    private final OggOpusDecoder oggOpusDecoder;
+    private final OggOpusEncoder oggOpusEncoder;
+    private final VoiceActivityDetector voiceActivityDetector;
+    private final AudioBufferManager audioBufferManager;
+    private final int chunkSeconds;
+    private final int chunkOverlapMillis;
+
+    /**
+     * A forced cut moves the next chunk's start back by the overlap, so a chunk must be longer
+     * than the overlap on both of its sides for the split to advance.
+     */
+    public VoicePreprocessor(AudioConverter audioConverter, OggOpusDecoder oggOpusDecoder,
+                             OggOpusEncoder oggOpusEncoder, VoiceActivityDetector voiceActivityDetector,
+                             AudioBufferManager audioBufferManager, int chunkSeconds, int chunkOverlapMillis) {
+        if (chunkOverlapMillis < 0 || chunkSeconds * 1000L <= 2L * chunkOverlapMillis) {
+            throw new IllegalArgumentException("Chunks of " + chunkSeconds + "s cannot overlap by "
+                    + chunkOverlapMillis + "ms, the chunks must be longer than twice the overlap");
+        }
+        this.audioConverter = audioConverter;
+        this.oggOpusDecoder = oggOpusDecoder;
+        this.oggOpusEncoder = oggOpusEncoder;
+        this.voiceActivityDetector = voiceActivityDetector;
+        this.audioBufferManager = audioBufferManager;
+        this.chunkSeconds = chunkSeconds;
+        this.chunkOverlapMillis = chunkOverlapMillis;
+    }
+
+    /**
+     * Cuts the silence out of a voice. OGG Opus voices are cut at packet boundaries and kept
+     * as OGG without encoding; other voices are decoded by ffmpeg and the speech is encoded
+     * to OGG Opus in the JVM at the profile's bit rate, so no voice takes more than one ffmpeg process.
+     */
+    public Mono<TrimmedAudio> trimSilence(File source, String targetName, AudioProfile profile,
+                                          CancellationToken token) {
+        return Mono.usingWhen(oggOpusDecoder.decode(source, token),
+                        opus -> Mono.fromCallable(() -> trimOpus(opus, targetName)),
+                        opus -> Mono.fromRunnable(opus::close))
+                .switchIfEmpty(Mono.defer(() -> decodeToWav(source, targetName, token)
+                        .flatMap(wav -> Mono.usingWhen(audioBufferManager.read(wav),
+                                        pcm -> Mono.fromCallable(() -> trimPcm(pcm, wav, targetName, profile, token)),
+                                        pcm -> Mono.fromRunnable(pcm::release))
+                                .doFinally(signal -> deleteQuietly(wav)))));
+    }
+
+    /**
+     * Splits a long voice at silence boundaries into chunks of about {@code chunkSeconds}, OGG
+     * for OGG Opus voices and WAV otherwise. Neighbouring chunks overlap by {@code chunkOverlapMillis},
+     * so words cut at a forced boundary are present in both chunks.
+     */
+    public Mono<List<TrimmedAudio>> splitAtSilence(File source, String targetName, CancellationToken token) {
+        return Mono.usingWhen(oggOpusDecoder.decode(source, token),
+                        opus -> Mono.fromCallable(() -> split(opus.samples(), targetName, ".ogg", opus::writeOgg)),
+                        opus -> Mono.fromRunnable(opus::close))
+                .switchIfEmpty(Mono.defer(() -> decodeToWav(source, targetName, token)
+                        .flatMap(wav -> Mono.usingWhen(audioBufferManager.read(wav),
+                                        pcm -> Mono.fromCallable(() -> splitPcm(pcm, wav, targetName)),
+                                        pcm -> Mono.fromRunnable(pcm::release))
+                                .doFinally(signal -> deleteQuietly(wav)))));
+    }
+
+    private Mono<File> decodeToWav(File source, String targetName, CancellationToken token) {
+        return Mono.fromCallable(() -> audioConverter.decodeToWav(source, targetName, token))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private TrimmedAudio trimOpus(DecodedOpus opus, String targetName) throws IOException {
+        File trimmed = new File(targetName + "-trimmed.ogg");
+        try {
+            return trim(opus.samples(), targetName, trimmed, opus::writeOgg);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(trimmed.toPath());
+            throw e;
+        }
+    }
+
+    /**
+     * Runs on the bounded elastic scheduler the PCM is read on, as the encoding keeps a thread busy.
+     */
+    private TrimmedAudio trimPcm(AudioBuffer pcm, File wav, String targetName, AudioProfile profile,
+                                 CancellationToken token) throws IOException {
+        File trimmed = new File(targetName + "-trimmed.ogg");
+        try {
+            ShortBuffer samples = WavUtil.pcm16Data(pcm.nioBuffer(), wav.getName()).asShortBuffer();
+            return trim(samples, targetName, trimmed,
+                    (target, speech) -> oggOpusEncoder.encode(target, samples, speech, profile, token));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(trimmed.toPath());
+            throw e;
+        }
+    }
+
+    private List<TrimmedAudio> splitPcm(AudioBuffer pcm, File wav, String targetName) throws IOException {
+        ByteBuffer data = WavUtil.pcm16Data(pcm.nioBuffer(), wav.getName());
+        return split(data.asShortBuffer(), targetName, ".wav",
+                (target, speech) -> WavUtil.writePcm16(target, data, speech, PCM_SAMPLE_RATE));
+    }
+
+    private TrimmedAudio trim(ShortBuffer samples, String targetName, File trimmed, SpeechWriter writer)
+            throws IOException {
+        List<AudioSegment> speech = voiceActivityDetector.detectSpeech(samples, PCM_SAMPLE_RATE);
+        if (speech.isEmpty()) {
+            log.info("No speech detected in voice {}, {}s of silence skipped",
+                    targetName, seconds(samples.limit()));
+            throw new NoSpeechDetectedException("No speech detected in voice " + targetName);
+        }
+
+        int kept = speech.stream().mapToInt(AudioSegment::length).sum();
+        writer.write(trimmed, speech);
+        double removed = seconds(samples.limit() - kept);
+        log.info("Removed {}s of silence from voice {}, {}s of speech left",
+                removed, targetName, seconds(kept));
+
+        return new TrimmedAudio(trimmed, seconds(kept), removed);
+    }
+
+    private List<TrimmedAudio> split(ShortBuffer samples, String targetName, String extension, SpeechWriter writer)
+            throws IOException {
+        List<AudioSegment> speech = voiceActivityDetector.detectSpeech(samples, PCM_SAMPLE_RATE);
+        if (speech.isEmpty()) {
+            throw new NoSpeechDetectedException("No speech detected in voice " + targetName);
+        }
+
+        List<AudioSegment> chunks = planChunks(speech);
+        List<TrimmedAudio> result = new ArrayList<>(chunks.size());
+        int kept = 0;
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                List<AudioSegment> chunkSpeech = clip(speech, chunks.get(i));
+                File chunk = new File(targetName + "-" + i + extension);
+                writer.write(chunk, chunkSpeech);
+                int length = chunkSpeech.stream().mapToInt(AudioSegment::length).sum();
+                kept += length;
+                result.add(new TrimmedAudio(chunk, seconds(length), 0));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (TrimmedAudio chunk : result) {
+                Files.deleteIfExists(chunk.file().toPath());
+            }
+            throw e;
+        }
+        log.info("Split voice {} of {}s into {} chunks, {}s of silence removed",
+                targetName, seconds(samples.limit()), result.size(),
+                seconds(Math.max(0, samples.limit() - kept)));
+
+        return result;
+    }
+
+    List<AudioSegment> planChunks(List<AudioSegment> speech) {
+        int target = chunkSeconds * PCM_SAMPLE_RATE;
+        int overlap = chunkOverlapMillis * PCM_SAMPLE_RATE / 1000;
+        int end = speech.get(speech.size() - 1).endSample();
+
+        List<AudioSegment> chunks = new ArrayList<>();
+        int start = speech.get(0).startSample();
+        int index = 0;
+        while (end - start > target) {
+            int limit = start + target;
+            while (index + 1 < speech.size() && speech.get(index + 1).startSample() < limit) {
+                index++;
+            }
+            // the last speech before a silence the chunk can end in
+            int last = speech.get(index).endSample() <= limit ? index : index - 1;
+            int cut;
+            if (last >= 0 && last + 1 < speech.size() && speech.get(last).endSample() > start) {
+                cut = (speech.get(last).endSample() + speech.get(last + 1).startSample()) / 2;
+                chunks.add(new AudioSegment(start, cut));
+                start = cut;
+            } else {
+                cut = limit;
+                chunks.add(new AudioSegment(start, cut + overlap));
+                start = cut - overlap;
+            }
+        }
+        chunks.add(new AudioSegment(start, end));
+        return chunks;
+    }
+
+    private static List<AudioSegment> clip(List<AudioSegment> speech, AudioSegment range) {
+        List<AudioSegment> clipped = new ArrayList<>();
+        for (AudioSegment segment : speech) {
+            int start = Math.max(segment.startSample(), range.startSample());
+            int end = Math.min(segment.endSample(), range.endSample());
+            if (start < end) {
+                clipped.add(new AudioSegment(start, end));
+            }
+        }
+        return clipped;
+    }
+
+    private static void deleteQuietly(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            log.error("Error during deleting file {}", file.getName(), e);
+        }
+    }
+
+    private static double seconds(int samples) {
+        return Math.round(samples * 100.0 / PCM_SAMPLE_RATE) / 100.0;
+    }
+
+    @FunctionalInterface
+    private interface SpeechWriter {
+        void write(File target, List<AudioSegment> speech) throws IOException;
+    }
+}
@@ -0,0 +1,4 @@
+package ua.ai_interviewer.dto.admin;
+
+public record AdmissionStatus(int capacity, int inFlight, long rejected, long averageLatencyMillis) {
+}
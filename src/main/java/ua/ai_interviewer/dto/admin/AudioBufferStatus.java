@@ -0,0 +1,9 @@
+package ua.ai_interviewer.dto.admin;
+
+/**
+ * @param reservedBytes Bytes held by live audio buffers.
+ * @param waiting       Allocations waiting for the budget.
+ */
+public record AudioBufferStatus(long budgetBytes, long reservedBytes, long peakReservedBytes, int buffers,
+                                int waiting) {
+}
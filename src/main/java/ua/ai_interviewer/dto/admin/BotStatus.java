@@ -0,0 +1,11 @@
+package ua.ai_interviewer.dto.admin;
+
+/**
+ * @param refused              Updates answered without processing: while draining, busy, over quota or not admitted.
+ * @param queuedTranscriptions Transcriptions of the bot's chats waiting for an upstream permit.
+ * @param queuedChatCalls      ChatGPT calls of the bot's chats waiting for an upstream permit.
+ */
+public record BotStatus(String name, String username, boolean polling, long updates, long refused,
+                        int activeChats, long turns, long failedTurns, int queuedTranscriptions,
+                        int queuedChatCalls) {
+}
@@ -0,0 +1,8 @@
+package ua.ai_interviewer.dto.admin;
+
+import ua.ai_interviewer.enums.DegradationLevel;
+
+import java.time.Instant;
+
+public record DegradationStatus(DegradationLevel level, double pressure, Instant since) {
+}
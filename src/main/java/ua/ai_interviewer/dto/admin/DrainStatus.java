@@ -0,0 +1,8 @@
+package ua.ai_interviewer.dto.admin;
+
+import ua.ai_interviewer.enums.DrainState;
+
+import java.time.Instant;
+
+public record DrainStatus(DrainState state, int inFlight, Instant startedAt, Instant deadline) {
+}
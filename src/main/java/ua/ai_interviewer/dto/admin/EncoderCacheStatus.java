@@ -0,0 +1,9 @@
+package ua.ai_interviewer.dto.admin;
+
+/**
+ * @param reusedMessages  Conversation messages sent from their cached encoding.
+ * @param encodedMessages Conversation messages encoded for a request.
+ */
+public record EncoderCacheStatus(int conversations, int maxConversations, long reusedMessages,
+                                 long encodedMessages, double hitRatio) {
+}
@@ -0,0 +1,12 @@
+package ua.ai_interviewer.dto.admin;
+
+import ua.ai_interviewer.enums.UpstreamLane;
+
+import java.util.Map;
+
+/**
+ * @param queuedByBot Calls waiting for a permit per bot.
+ */
+public record LaneStatus(UpstreamLane lane, int capacity, int available, int queued,
+                         Map<String, Integer> queuedByBot) {
+}
@@ -0,0 +1,8 @@
+package ua.ai_interviewer.dto.admin;
+
+/**
+ * @param voiceBytes Bytes of synthesized voices held by the cache, part of the audio buffer budget.
+ */
+public record ResponseCacheStatus(int entries, int maxEntries, long voiceBytes, long maxVoiceBytes, long hits,
+                                  long voiceHits, long misses, double hitRatio, long evictions) {
+}
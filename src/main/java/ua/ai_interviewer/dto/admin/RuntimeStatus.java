@@ -0,0 +1,18 @@
+package ua.ai_interviewer.dto.admin;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What the instance is doing at {@code time}. Each part is read on its own, so the parts
+ * may be a few microseconds apart.
+ *
+ * @param turns        The turns in flight, oldest first.
+ * @param lanes        Upstream concurrency limits and their queues.
+ * @param speechToText Speech-to-text providers; an unhealthy one is used only as a fallback.
+ */
+public record RuntimeStatus(Instant time, List<TurnStatus> turns, long cancelledTurns, List<LaneStatus> lanes,
+                            AdmissionStatus admission, AudioBufferStatus audioBuffers, DrainStatus drain,
+                            DegradationStatus degradation, List<SpeechToTextStatus> speechToText,
+                            ResponseCacheStatus responseCache, EncoderCacheStatus requestEncoder) {
+}
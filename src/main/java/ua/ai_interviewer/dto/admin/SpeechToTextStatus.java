@@ -0,0 +1,12 @@
+package ua.ai_interviewer.dto.admin;
+
+import ua.ai_interviewer.enums.UpstreamLane;
+
+/**
+ * @param realTimeFactor Observed seconds of provider processing, excluding the wait for a permit, per second of speech.
+ * @param errorRate      Smoothed share of failed calls.
+ * @param healthy        Whether the provider is picked by its latency, rather than only as a fallback.
+ */
+public record SpeechToTextStatus(String name, UpstreamLane lane, double maxClipSeconds, double realTimeFactor,
+                                 double errorRate, long calls, long failures, boolean healthy) {
+}
@@ -0,0 +1,13 @@
+package ua.ai_interviewer.dto.admin;
+
+import java.util.List;
+
+/**
+ * @param stage          The most recently started stage still running, or null between stages.
+ * @param stages         All stages running, e.g. an acknowledgement alongside a transcription.
+ * @param stageAgeMillis Time since the current stage started, or since the turn started between stages.
+ * @param bytesInFlight  Payload sent and received so far by the running stages.
+ */
+public record TurnStatus(String bot, long chatId, String stage, List<String> stages, long ageMillis,
+                         long stageAgeMillis, long bytesInFlight) {
+}
@@ -0,0 +1,8 @@
+package ua.ai_interviewer.dto.audio;
+
+public record AudioSegment(int startSample, int endSample) {
+
+    public int length() {
+        return endSample - startSample;
+    }
+}
@@ -0,0 +1,9 @@
+package ua.ai_interviewer.dto.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @param granule The granule position once the packet has been decoded, 0 for header packets.
+ */
+public record OggPacket(ByteBuffer data, long granule) {
+}
@@ -0,0 +1,13 @@
+package ua.ai_interviewer.dto.audio;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The packets of the first logical stream of an OGG file.
+ *
+ * @param serial  The serial number of the stream.
+ * @param packets Views of the packets, see {@link ua.ai_interviewer.util.OggUtil#readPackets}.
+ */
+public record OggStream(int serial, List<ByteBuffer> packets) {
+}
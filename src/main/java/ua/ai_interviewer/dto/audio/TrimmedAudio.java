@@ -0,0 +1,6 @@
+package ua.ai_interviewer.dto.audio;
+
+import java.io.File;
+
+public record TrimmedAudio(File file, double speechSeconds, double removedSeconds) {
+}
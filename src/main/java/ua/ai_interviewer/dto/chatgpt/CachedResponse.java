@@ -0,0 +1,7 @@
+package ua.ai_interviewer.dto.chatgpt;
+
+/**
+ * A cached reply; its voice, once synthesized, is taken from the cache when it is sent.
+ */
+public record CachedResponse(String text) {
+}
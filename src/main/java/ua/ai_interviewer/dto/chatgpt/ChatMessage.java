@@ -3,7 +3,6 @@ package ua.ai_interviewer.dto.chatgpt;
 import lombok.*;
 
 @Getter
-@Setter
 @Builder
 @ToString
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
@@ -3,5 +3,5 @@ package ua.ai_interviewer.dto.chatgpt;
 import java.util.List;
 
 
-public record StreamResponse(List<StreamChoice> choices) {
+public record StreamResponse(List<StreamChoice> choices, Usage usage) {
 }
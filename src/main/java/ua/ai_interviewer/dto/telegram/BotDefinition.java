@@ -0,0 +1,24 @@
+package ua.ai_interviewer.dto.telegram;
+
+import ua.ai_interviewer.enums.Language;
+
+/**
+ * One bot served by the application, see {@code telegram.bots}.
+ *
+ * @param name      The tenant name, stored with the bot's interviews and settings.
+ * @param language  The language of chats that have not chosen one.
+ * @param speeching Whether chats that have not chosen get voice replies.
+ * @param weight    The bot's share of upstream capacity relative to other bots.
+ */
+public record BotDefinition(String name, String token, String username, Language language, Boolean speeching,
+                            Double weight) {
+
+    public static final String DEFAULT_NAME = "default";
+
+    public BotDefinition {
+        name = name == null || name.isBlank() ? DEFAULT_NAME : name;
+        language = language == null ? Language.UKRAINIAN : language;
+        speeching = speeching == null || speeching;
+        weight = weight == null || weight <= 0 ? 1.0 : weight;
+    }
+}
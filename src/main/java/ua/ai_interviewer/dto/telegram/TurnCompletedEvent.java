@@ -0,0 +1,7 @@
+package ua.ai_interviewer.dto.telegram;
+
+/**
+ * Published when the handling of an update has finished, successfully or not.
+ */
+public record TurnCompletedEvent(Integer updateId, Long chatId, long durationNanos, boolean failed) {
+}
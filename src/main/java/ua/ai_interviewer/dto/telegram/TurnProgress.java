@@ -0,0 +1,55 @@
+package ua.ai_interviewer.dto.telegram;
+
+import ua.ai_interviewer.dto.admin.TurnStatus;
+import ua.ai_interviewer.jfr.StageEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The stages of one turn that are running right now, for live introspection. Travels with
+ * the turn in the Reactor context and is read without locking.
+ */
+public final class TurnProgress {
+
+    private final String bot;
+    private final long chatId;
+    private final long startedNanos = System.nanoTime();
+    private final Map<StageEvent, Long> running = new ConcurrentHashMap<>();
+
+    public TurnProgress(String bot, long chatId) {
+        this.bot = bot;
+        this.chatId = chatId;
+    }
+
+    public void stageStarted(StageEvent stage) {
+        running.put(stage, System.nanoTime());
+    }
+
+    public void stageFinished(StageEvent stage) {
+        running.remove(stage);
+    }
+
+    /**
+     * The most recently started of the running stages is reported as the current one.
+     */
+    public TurnStatus status() {
+        long now = System.nanoTime();
+        List<String> stages = new ArrayList<>();
+        String current = null;
+        long currentStarted = startedNanos;
+        long bytes = 0;
+        for (Map.Entry<StageEvent, Long> stage : running.entrySet()) {
+            stages.add(stage.getKey().getStage());
+            bytes += stage.getKey().getBytes();
+            if (current == null || stage.getValue() > currentStarted) {
+                current = stage.getKey().getStage();
+                currentStarted = stage.getValue();
+            }
+        }
+        return new TurnStatus(bot, chatId, current, stages, (now - startedNanos) / 1_000_000,
+                (now - currentStarted) / 1_000_000, bytes);
+    }
+}
@@ -0,0 +1,27 @@
+package ua.ai_interviewer.dto.telegram;
+
+import java.time.Duration;
+
+/**
+ * Collects the stage timings of one turn for its summary log record. Travels with the
+ * turn in the Reactor context.
+ */
+public final class TurnSummary {
+
+    private final StringBuilder stages = new StringBuilder();
+
+    public synchronized void addStage(String stage, long durationNanos, boolean failed) {
+        if (!stages.isEmpty()) {
+            stages.append(' ');
+        }
+        stages.append(stage).append('=').append(Duration.ofNanos(durationNanos).toMillis()).append("ms");
+        if (failed) {
+            stages.append("(failed)");
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return stages.toString();
+    }
+}
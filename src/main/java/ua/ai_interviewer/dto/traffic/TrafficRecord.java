@@ -0,0 +1,50 @@
+package ua.ai_interviewer.dto.traffic;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of a traffic recording: either an incoming update or a finished upstream stage.
+ * Chats are renumbered in order of appearance and no text or audio is kept, only sizes.
+ *
+ * @param at       Milliseconds since the recording started.
+ * @param type     {@link #UPDATE} or {@link #STAGE}.
+ * @param chat     The anonymised chat number.
+ * @param kind     The update kind: {@code voice}, {@code text} or {@code callback}.
+ * @param command  The bot command or callback data, when it is one of the known values.
+ * @param seconds  The voice duration.
+ * @param bytes    The voice or text size.
+ * @param stage    The stage name.
+ * @param millis   The stage duration.
+ * @param sent     The stage request size.
+ * @param received The stage response size.
+ */
+@JsonInclude(JsonInclude.Include.NON_DEFAULT)
+public record TrafficRecord(long at,
+                            String type,
+                            int chat,
+                            String kind,
+                            String command,
+                            int seconds,
+                            long bytes,
+                            String stage,
+                            long millis,
+                            long sent,
+                            long received) {
+
+    public static final String UPDATE = "update";
+    public static final String STAGE = "stage";
+
+    public static TrafficRecord update(long at, int chat, String kind, String command, int seconds, long bytes) {
+        return new TrafficRecord(at, UPDATE, chat, kind, command, seconds, bytes, null, 0, 0, 0);
+    }
+
+    public static TrafficRecord stage(long at, int chat, String stage, long millis, long sent, long received) {
+        return new TrafficRecord(at, STAGE, chat, null, null, 0, 0, stage, millis, sent, received);
+    }
+
+    @JsonIgnore
+    public boolean isUpdate() {
+        return UPDATE.equals(type);
+    }
+}
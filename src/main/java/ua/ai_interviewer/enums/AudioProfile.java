@@ -0,0 +1,19 @@
+package ua.ai_interviewer.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Bit rates for transcription uploads of voices that are encoded again, i.e. those not
+ * sent as their own Opus packets; the speech is always encoded to mono 16 kHz Opus.
+ * {@link #SPEECH} is two thirds of the size of {@link #MUSIC} and still carries
+ * everything speech recognition uses.
+ */
+@Getter
+@AllArgsConstructor
+public enum AudioProfile {
+    MUSIC(48000),
+    SPEECH(32000);
+
+    private final int bitRate;
+}
@@ -6,6 +6,7 @@ import lombok.Getter;
 public enum ChatGPTModel {
 
     GPT_TURBO("gpt-3.5-turbo"),
+    GPT_4O_MINI("gpt-4o-mini"),
     WISPER("whisper-1");
 
     private String value;
@@ -0,0 +1,13 @@
+package ua.ai_interviewer.enums;
+
+/**
+ * Degradation levels in order of rising load; each level includes the ones before it.
+ */
+public enum DegradationLevel {
+
+    NONE,
+    SPEECH_AUDIO,
+    CAPPED_CONTEXT,
+    TEXT_REPLIES,
+    CHEAPER_MODEL
+}
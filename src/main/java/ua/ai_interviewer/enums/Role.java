@@ -5,6 +5,7 @@ import lombok.Getter;
 @Getter
 public enum Role {
 
+    SYSTEM("system"),
     USER("user"),
     ASSISTANT("assistant");
 
@@ -0,0 +1,8 @@
+package ua.ai_interviewer.enums;
+
+public enum UpstreamLane {
+
+    TRANSCRIPTION,
+    LOCAL_TRANSCRIPTION,
+    CHAT
+}
@@ -0,0 +1,7 @@
+package ua.ai_interviewer.exception;
+
+public class AudioConversionException extends RuntimeException {
+    public AudioConversionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package ua.ai_interviewer.exception;
+
+public class NoSpeechDetectedException extends RuntimeException {
+    public NoSpeechDetectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ua.ai_interviewer.exception;
+
+public class SpeechToTextException extends RuntimeException {
+    public SpeechToTextException(String message) {
+        super(message);
+    }
+}
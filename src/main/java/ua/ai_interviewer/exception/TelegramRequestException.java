@@ -0,0 +1,7 @@
+package ua.ai_interviewer.exception;
+
+public class TelegramRequestException extends RuntimeException {
+    public TelegramRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
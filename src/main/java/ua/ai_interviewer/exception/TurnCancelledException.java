@@ -0,0 +1,7 @@
+package ua.ai_interviewer.exception;
+
+public class TurnCancelledException extends RuntimeException {
+    public TurnCancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,60 @@
+package ua.ai_interviewer.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One stage of a chat turn, e.g. a voice download, a transcription or an upstream call. The
+ * byte counts are added from the threads the payload flows through and read by live status
+ * requests, so they are written under the event's lock and published through volatiles.
+ */
+@Name("ua.ai_interviewer.Stage")
+@Label("Turn Stage")
+@Category({"AI Interviewer", "Turn"})
+@Description("A stage of handling a chat turn")
+@StackTrace(false)
+public class StageEvent extends Event {
+
+    @Label("Chat Id")
+    private long chatId;
+    @Label("Stage")
+    private String stage;
+    @Label("Request Size")
+    @DataAmount
+    private volatile long requestBytes;
+    @Label("Response Size")
+    @DataAmount
+    private volatile long responseBytes;
+    @Label("Failed")
+    private boolean failed;
+
+    public static StageEvent start(String stage, long chatId) {
+        StageEvent event = new StageEvent();
+        event.stage = stage;
+        event.chatId = chatId;
+        event.begin();
+        return event;
+    }
+
+    public synchronized void addRequestBytes(long bytes) {
+        requestBytes += bytes;
+    }
+
+    public synchronized void addResponseBytes(long bytes) {
+        responseBytes += bytes;
+    }
+
+    public void fail() {
+        failed = true;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * The payload sent and received so far.
+     */
+    public long getBytes() {
+        return requestBytes + responseBytes;
+    }
+}
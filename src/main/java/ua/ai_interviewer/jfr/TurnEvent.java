@@ -0,0 +1,55 @@
+package ua.ai_interviewer.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A whole voice turn, from the admitted update to the delivered reply.
+ */
+@Name("ua.ai_interviewer.Turn")
+@Label("Turn")
+@Category({"AI Interviewer", "Turn"})
+@Description("A voice turn from the received update to the delivered reply")
+@StackTrace(false)
+public class TurnEvent extends Event {
+
+    @Label("Bot")
+    private String bot;
+    @Label("Chat Id")
+    private long chatId;
+    @Label("Voice Duration")
+    @Timespan(Timespan.SECONDS)
+    private long voiceSeconds;
+    @Label("Voice Size")
+    @DataAmount
+    private long voiceBytes;
+    @Label("Failed")
+    private boolean failed;
+
+    public static TurnEvent start(String bot, long chatId) {
+        TurnEvent event = new TurnEvent();
+        event.bot = bot;
+        event.chatId = chatId;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Adds a voice note of the turn; notes arrive while the turn runs when they are coalesced.
+     */
+    public synchronized void addVoice(long seconds, long bytes) {
+        voiceSeconds += seconds;
+        voiceBytes += bytes;
+    }
+
+    public synchronized long getVoiceSeconds() {
+        return voiceSeconds;
+    }
+
+    public synchronized long getVoiceBytes() {
+        return voiceBytes;
+    }
+
+    public void fail() {
+        failed = true;
+    }
+}
@@ -0,0 +1,35 @@
+package ua.ai_interviewer.model;
+
+import lombok.*;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+import ua.ai_interviewer.dto.chatgpt.ChatMessage;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder
+@Document("interview_archive")
+public class ArchivedInterview {
+
+    @MongoId
+    private String id;
+    private String bot;
+    private Long chatId;
+    private Instant lastActivityAt;
+    private Instant archivedAt;
+    private int messageCount;
+    private String summary;
+    /**
+     * Full conversation, when archived without compression.
+     */
+    private List<ChatMessage> conversation;
+    /**
+     * Gzipped JSON array of the full conversation, when archived with compression.
+     */
+    private byte[] compressedConversation;
+}
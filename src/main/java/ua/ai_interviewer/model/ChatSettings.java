@@ -0,0 +1,28 @@
+package ua.ai_interviewer.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import ua.ai_interviewer.enums.Language;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder(toBuilder = true)
+@Document
+public class ChatSettings {
+
+    /**
+     * The bot and the chat id, see {@link #id(String, Long)}.
+     */
+    @Id
+    private String id;
+    private String bot;
+    private Long chatId;
+    private Language language;
+    private boolean speeching;
+
+    public static String id(String bot, Long chatId) {
+        return bot + ":" + chatId;
+    }
+}
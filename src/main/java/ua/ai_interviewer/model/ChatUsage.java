@@ -0,0 +1,30 @@
+package ua.ai_interviewer.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Usage of one chat on one UTC day. The id is {@code <chatId>:<day>}.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder
+@Document("chat_usage")
+public class ChatUsage {
+
+    @Id
+    private String id;
+    @Indexed
+    private Long chatId;
+    private String day;
+    private long promptTokens;
+    private long completionTokens;
+    private long audioSeconds;
+
+    public long getTokens() {
+        return promptTokens + completionTokens;
+    }
+}
@@ -0,0 +1,25 @@
+package ua.ai_interviewer.model;
+
+import lombok.*;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+import ua.ai_interviewer.dto.chatgpt.ChatMessage;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder
+@Document
+@CompoundIndex(name = "interview_page", def = "{'interviewId': 1, 'number': 1}", unique = true)
+public class ConversationPage {
+
+    @MongoId
+    private String id;
+    private String interviewId;
+    private int number;
+    private List<ChatMessage> messages;
+}
@@ -1,11 +1,15 @@
 package ua.ai_interviewer.model;
 
 import lombok.*;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 import ua.ai_interviewer.dto.chatgpt.ChatMessage;
-import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.enums.Role;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -15,15 +19,28 @@ import java.util.NoSuchElementException;
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 @Builder
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "bot_chat_active", def = "{'bot': 1, 'chatId': 1, 'active': 1}"),
+        @CompoundIndex(name = "active_last_activity", def = "{'active': 1, 'lastActivityAt': 1}")
+})
 public class Interview {
 
     @MongoId
     private String id;
+    /**
+     * The name of the bot the conversation is held with.
+     */
+    private String bot;
     private Long chatId;
     private boolean active;
-    private boolean speeching;
-    private Language language;
+    private Instant lastActivityAt;
+    /**
+     * Tail window of the conversation, older messages are moved to {@link ConversationPage}s.
+     */
     private List<ChatMessage> conversation;
+    private int archivedPages;
+    private int archivedMessages;
+    private String summary;
 
     public void addMessage(ChatMessage message) {
         if (conversation != null) {
@@ -33,4 +50,17 @@ public class Interview {
         }
     }
 
+    public List<ChatMessage> getContext() {
+        if (summary == null || summary.isBlank()) {
+            return conversation;
+        }
+        List<ChatMessage> context = new ArrayList<>(conversation.size() + 1);
+        context.add(ChatMessage.builder()
+                .role(Role.SYSTEM.value)
+                .content(summary)
+                .build());
+        context.addAll(conversation);
+        return context;
+    }
+
 }
@@ -0,0 +1,7 @@
+package ua.ai_interviewer.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import ua.ai_interviewer.model.ChatSettings;
+
+public interface ChatSettingsRepository extends MongoRepository<ChatSettings, String> {
+}
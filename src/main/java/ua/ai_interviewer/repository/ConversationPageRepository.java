@@ -0,0 +1,14 @@
+package ua.ai_interviewer.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import ua.ai_interviewer.model.ConversationPage;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ConversationPageRepository extends MongoRepository<ConversationPage, String> {
+
+    List<ConversationPage> findByInterviewIdOrderByNumberAsc(String interviewId);
+
+    Optional<ConversationPage> findByInterviewIdAndNumber(String interviewId, int number);
+}
@@ -7,5 +7,7 @@ import java.util.Optional;
 
 public interface InterviewRepository extends MongoRepository<Interview, String> {
 
-    Optional<Interview> findByChatIdAndActiveTrue(Long chatId);
+    Optional<Interview> findByBotAndChatIdAndActiveTrue(String bot, Long chatId);
+
+    Optional<Interview> findByBotIsNullAndChatIdAndActiveTrue(Long chatId);
 }
@@ -0,0 +1,85 @@
+package ua.ai_interviewer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ua.ai_interviewer.dto.admin.AdmissionStatus;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admits heavy jobs only while their projected wait stays within the SLO.
+ * The wait is projected from the jobs in flight, the configured capacity and
+ * an exponentially weighted average of observed job latencies.
+ */
+@Slf4j
+@Service
+public class AdmissionController {
+
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong averageLatencyNanos;
+    private final int capacity;
+    private final long sloNanos;
+
+    public AdmissionController(@Value("${admission.capacity:8}") int capacity,
+                               @Value("${admission.slo-seconds:30}") int sloSeconds,
+                               @Value("${admission.initial-latency-seconds:10}") int initialLatencySeconds) {
+        this.capacity = capacity;
+        this.sloNanos = Duration.ofSeconds(sloSeconds).toNanos();
+        this.averageLatencyNanos = new AtomicLong(Duration.ofSeconds(initialLatencySeconds).toNanos());
+    }
+
+    public boolean tryAdmit() {
+        int current = inFlight.incrementAndGet();
+        if (projectedWaitNanos(current) > sloNanos) {
+            inFlight.decrementAndGet();
+            long total = rejected.incrementAndGet();
+            log.warn("Rejected heavy job, {} in flight, projected wait {}s, {} rejected in total",
+                    current - 1, Duration.ofNanos(projectedWaitNanos(current)).toSeconds(), total);
+            return false;
+        }
+        return true;
+    }
+
+    public void complete(long startedNanos) {
+        inFlight.decrementAndGet();
+        long latency = System.nanoTime() - startedNanos;
+        averageLatencyNanos.updateAndGet(average ->
+                (long) (average + LATENCY_WEIGHT * (latency - average)));
+    }
+
+    public long getRetryAfterSeconds() {
+        long wait = projectedWaitNanos(inFlight.get() + 1) - sloNanos;
+        return Math.max(1, Duration.ofNanos(wait + averageLatencyNanos.get()).toSeconds());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public Duration getAverageLatency() {
+        return Duration.ofNanos(averageLatencyNanos.get());
+    }
+
+    public AdmissionStatus getStatus() {
+        return new AdmissionStatus(capacity, inFlight.get(), rejected.get(), getAverageLatency().toMillis());
+    }
+
+    private long projectedWaitNanos(int jobs) {
+        long queuedRounds = Math.max(0, jobs - 1) / capacity;
+        return queuedRounds * averageLatencyNanos.get();
+    }
+}
@@ -2,11 +2,12 @@ package ua.ai_interviewer.service;
 
 import org.springframework.http.codec.ServerSentEvent;
 import reactor.core.publisher.Flux;
-import ua.ai_interviewer.dto.chatgpt.ChatMessage;
-
-import java.util.List;
+import ua.ai_interviewer.model.Interview;
 
 public interface AsyncOpenAIService {
 
-    Flux<ServerSentEvent<String>> getResponseFromChatGpt(List<ChatMessage> conversation);
+    /**
+     * @param token Cancels the stream, and with it the upstream request, when the turn is superseded.
+     */
+    Flux<ServerSentEvent<String>> getResponseFromChatGpt(Interview interview, CancellationToken token);
 }
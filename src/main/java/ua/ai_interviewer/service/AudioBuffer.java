@@ -0,0 +1,65 @@
+package ua.ai_interviewer.service;
+
+import io.netty.buffer.ByteBuf;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference counted audio bytes handed out by {@link AudioBufferManager}. The memory and
+ * its share of the budget are given back when the last reference is released.
+ */
+public final class AudioBuffer implements AutoCloseable {
+
+    private final ByteBuf buf;
+    private final NettyDataBufferFactory bufferFactory;
+    private final Runnable onRelease;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    AudioBuffer(ByteBuf buf, NettyDataBufferFactory bufferFactory, Runnable onRelease) {
+        this.buf = buf;
+        this.bufferFactory = bufferFactory;
+        this.onRelease = onRelease;
+    }
+
+    public int size() {
+        return buf.readableBytes();
+    }
+
+    /**
+     * A view of the bytes, valid until the buffer is released.
+     */
+    public ByteBuffer nioBuffer() {
+        return buf.nioBuffer();
+    }
+
+    /**
+     * The bytes for a request body. Every subscription gets its own view of the memory,
+     * which the writer releases; this buffer stays owned by the caller.
+     */
+    public Flux<DataBuffer> content() {
+        return Flux.defer(() -> Flux.just(bufferFactory.wrap(buf.retainedDuplicate())));
+    }
+
+    public AudioBuffer retain() {
+        if (references.getAndUpdate(count -> count == 0 ? 0 : count + 1) == 0) {
+            throw new IllegalStateException("Audio buffer has already been released");
+        }
+        return this;
+    }
+
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            buf.release();
+            onRelease.run();
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
@@ -0,0 +1,343 @@
+package ua.ai_interviewer.service;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+import ua.ai_interviewer.dto.admin.AudioBufferStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out the memory audio is held in while it is worked on: pooled direct buffers for
+ * decoded PCM and wrapped, uncopied buffers for synthesized speech, including the voices
+ * kept by the response cache. All of it counts against {@code audio.buffer.budget-bytes};
+ * callers wait without holding a thread until enough of the budget is free, in order of
+ * arrival. A request larger than the whole budget waits until nothing else is held.
+ */
+@Slf4j
+@Service
+public class AudioBufferManager {
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final Queue<Reservation> waiters = new ArrayDeque<>();
+    private final AtomicInteger buffers = new AtomicInteger();
+    private final long budgetBytes;
+    private final int speechBytesPerChar;
+    // written under the manager's lock, volatile for the status
+    private volatile long reservedBytes;
+    private volatile long peakReservedBytes;
+    private volatile int waiting;
+
+    public AudioBufferManager(@Value("${audio.buffer.budget-bytes:67108864}") long budgetBytes,
+                              @Value("${audio.buffer.speech-bytes-per-char:300}") int speechBytesPerChar) {
+        this.budgetBytes = budgetBytes;
+        this.speechBytesPerChar = speechBytesPerChar;
+    }
+
+    /**
+     * Reads the file into pooled memory once the budget allows it. The file is read on the
+     * bounded elastic scheduler, which the buffer is emitted on.
+     */
+    public Mono<AudioBuffer> read(File file) {
+        return Mono.fromCallable(() -> Files.size(file.toPath()))
+                .flatMap(size -> whenReserved(size, reserved -> load(file, Math.toIntExact(size), reserved)));
+    }
+
+    /**
+     * Allocates zero-filled pooled memory once the budget allows it, emitted on the bounded
+     * elastic scheduler.
+     */
+    public Mono<AudioBuffer> allocate(int bytes) {
+        return whenReserved(bytes, reserved -> {
+            ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(bytes);
+            buf.writeZero(bytes);
+            return track(buf, reserved);
+        });
+    }
+
+    /**
+     * Reserves the expected size before the audio is produced and wraps the produced bytes
+     * without copying them. The reservation is corrected to the actual size. A buffer wrapped
+     * for a subscriber that cancelled meanwhile is released rather than leaked.
+     */
+    public Mono<AudioBuffer> wrap(long expectedBytes, Mono<ByteBuffer> audio) {
+        return reserve(expectedBytes).flatMap(reservation -> {
+            if (!reservation.deliver()) {
+                return Mono.<AudioBuffer>empty();
+            }
+            long reserved = reservation.bytes;
+            AtomicBoolean settled = new AtomicBoolean();
+            Runnable giveBack = () -> {
+                if (settled.compareAndSet(false, true)) {
+                    release(reserved);
+                }
+            };
+            return audio
+                    .map(content -> {
+                        long actual = content.remaining();
+                        adjust(settled.compareAndSet(false, true) ? actual - reserved : actual);
+                        return track(Unpooled.wrappedBuffer(content), actual);
+                    })
+                    .doOnError(e -> giveBack.run())
+                    .doOnCancel(giveBack)
+                    .switchIfEmpty(Mono.fromRunnable(giveBack));
+        }).doOnDiscard(AudioBuffer.class, AudioBuffer::release);
+    }
+
+    /**
+     * The expected size of the OGG Opus speech synthesized from the text.
+     */
+    public long estimateSpeechBytes(String text) {
+        return (long) text.length() * speechBytesPerChar;
+    }
+
+    public AudioBufferStatus getStatus() {
+        return new AudioBufferStatus(budgetBytes, reservedBytes, peakReservedBytes, buffers.get(), waiting);
+    }
+
+    /**
+     * Allocates once the reservation is granted. A reservation granted after the subscriber
+     * cancelled, or a buffer allocated meanwhile, is given back rather than leaked.
+     */
+    private Mono<AudioBuffer> whenReserved(long bytes, Allocation allocation) {
+        return reserve(bytes).flatMap(reservation -> {
+            if (!reservation.deliver()) {
+                return Mono.<AudioBuffer>empty();
+            }
+            Handover handover = new Handover(reservation.bytes);
+            return Mono.fromCallable(() -> handover.allocate(allocation))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .<AudioBuffer>handle((buffer, sink) -> {
+                        if (handover.take(buffer)) {
+                            sink.next(buffer);
+                        }
+                    })
+                    .doOnCancel(handover::cancel);
+        }).doOnDiscard(AudioBuffer.class, AudioBuffer::release);
+    }
+
+    private AudioBuffer load(File file, int size, long reserved) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(size);
+            try {
+                while (buf.writerIndex() < size) {
+                    if (buf.writeBytes(channel, buf.writerIndex(), size - buf.writerIndex()) < 0) {
+                        throw new IOException("Unexpected end of " + file.getName());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                buf.release();
+                throw e;
+            }
+            return track(buf, reserved);
+        }
+    }
+
+    private AudioBuffer track(ByteBuf buf, long reserved) {
+        buffers.incrementAndGet();
+        return new AudioBuffer(buf, bufferFactory, () -> {
+            buffers.decrementAndGet();
+            release(reserved);
+        });
+    }
+
+    /**
+     * The subscriber takes the reservation with {@link Reservation#deliver}; a reservation it
+     * cannot take has been given back on cancellation.
+     */
+    private Mono<Reservation> reserve(long bytes) {
+        long amount = Math.max(0, Math.min(bytes, budgetBytes));
+        return Mono.create(sink -> {
+            Reservation reservation = new Reservation(sink, amount);
+            synchronized (this) {
+                sink.onCancel(() -> cancel(reservation));
+                if (!waiters.isEmpty() || reservedBytes + amount > budgetBytes) {
+                    if (reservation.isCancelled()) {
+                        return;
+                    }
+                    waiters.add(reservation);
+                    waiting = waiters.size();
+                    log.debug("Waiting for {} bytes of audio budget, {} of {} reserved",
+                            amount, reservedBytes, budgetBytes);
+                    return;
+                }
+                if (!reservation.grant()) {
+                    return;
+                }
+                add(amount);
+            }
+            sink.success(reservation);
+        });
+    }
+
+    /**
+     * A reservation granted to a subscriber that cancelled may have been dropped by its sink
+     * rather than delivered, so it is given back here unless the subscriber took it.
+     */
+    private void cancel(Reservation reservation) {
+        if (reservation.withdraw()) {
+            synchronized (this) {
+                waiters.remove(reservation);
+                waiting = waiters.size();
+            }
+            grantWaiting();
+        } else if (reservation.abandon()) {
+            release(reservation.bytes);
+        }
+    }
+
+    private void release(long bytes) {
+        synchronized (this) {
+            reservedBytes -= bytes;
+        }
+        grantWaiting();
+    }
+
+    /**
+     * Produced audio may exceed its reservation; it is held anyway and delays later reservations.
+     */
+    private void adjust(long delta) {
+        synchronized (this) {
+            add(delta);
+        }
+        if (delta < 0) {
+            grantWaiting();
+        }
+    }
+
+    private void add(long bytes) {
+        reservedBytes += bytes;
+        peakReservedBytes = Math.max(peakReservedBytes, reservedBytes);
+    }
+
+    private void grantWaiting() {
+        while (true) {
+            Reservation next;
+            synchronized (this) {
+                next = waiters.peek();
+                if (next == null || reservedBytes + next.bytes > budgetBytes) {
+                    return;
+                }
+                waiters.poll();
+                waiting = waiters.size();
+                if (!next.grant()) {
+                    continue;
+                }
+                add(next.bytes);
+            }
+            next.sink.success(next);
+        }
+    }
+
+    /**
+     * Hands the buffer allocated for a reservation to the subscriber, or back to the budget if
+     * the subscriber cancels first. A buffer allocated after cancellation may be dropped by the
+     * scheduling operator without being discarded, so it counts as delivered only once taken.
+     */
+    private final class Handover {
+
+        private static final Object STARTED = new Object();
+        private static final Object DONE = new Object();
+
+        private final AtomicReference<Object> state = new AtomicReference<>();
+        private final long reserved;
+
+        private Handover(long reserved) {
+            this.reserved = reserved;
+        }
+
+        private AudioBuffer allocate(Allocation allocation) throws IOException {
+            if (!state.compareAndSet(null, STARTED)) {
+                return null;
+            }
+            AudioBuffer buffer;
+            try {
+                buffer = allocation.allocate(reserved);
+            } catch (IOException | RuntimeException e) {
+                release(reserved);
+                throw e;
+            }
+            if (!state.compareAndSet(STARTED, buffer)) {
+                buffer.release();
+                return null;
+            }
+            return buffer;
+        }
+
+        private boolean take(AudioBuffer buffer) {
+            return state.compareAndSet(buffer, DONE);
+        }
+
+        private void cancel() {
+            Object current = state.getAndSet(DONE);
+            if (current == null) {
+                release(reserved);
+            } else if (current instanceof AudioBuffer buffer) {
+                buffer.release();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Allocation {
+        AudioBuffer allocate(long reserved) throws IOException;
+    }
+
+    /**
+     * A request for part of the budget, queued while it does not fit. Once granted it is
+     * either delivered to the subscriber or abandoned by a subscriber that cancelled meanwhile.
+     */
+    private static final class Reservation {
+
+        private static final int REQUESTED = 0;
+        private static final int GRANTED = 1;
+        private static final int DELIVERED = 2;
+        private static final int CANCELLED = 3;
+
+        private final MonoSink<Reservation> sink;
+        private final long bytes;
+        private final AtomicInteger state = new AtomicInteger(REQUESTED);
+
+        private Reservation(MonoSink<Reservation> sink, long bytes) {
+            this.sink = sink;
+            this.bytes = bytes;
+        }
+
+        private boolean grant() {
+            return state.compareAndSet(REQUESTED, GRANTED);
+        }
+
+        private boolean deliver() {
+            return state.compareAndSet(GRANTED, DELIVERED);
+        }
+
+        private boolean withdraw() {
+            return state.compareAndSet(REQUESTED, CANCELLED);
+        }
+
+        private boolean abandon() {
+            return state.compareAndSet(GRANTED, CANCELLED);
+        }
+
+        private boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+}
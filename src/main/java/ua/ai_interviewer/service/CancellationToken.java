@@ -0,0 +1,111 @@
+package ua.ai_interviewer.service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.exception.TurnCancelledException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancellation of one turn, handed out by {@link TurnRegistry}. Reactor chains are bound to
+ * it, blocking work registers a callback that aborts it, and writes that must not happen
+ * after the turn has been superseded run through {@link #runUnlessCancelled}.
+ */
+public final class CancellationToken {
+
+    private final List<Runnable> callbacks = new ArrayList<>();
+    private volatile String reason;
+
+    /**
+     * Cancels the turn and runs the registered callbacks. Waits for a write running through
+     * {@link #runUnlessCancelled} to finish, so no such write starts once this returns.
+     *
+     * @return false if the turn had already been cancelled.
+     */
+    public boolean cancel(String reason) {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (this.reason != null) {
+                return false;
+            }
+            this.reason = reason;
+            toRun = List.copyOf(callbacks);
+            callbacks.clear();
+        }
+        toRun.forEach(Runnable::run);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void throwIfCancelled() {
+        String cancelledFor = reason;
+        if (cancelledFor != null) {
+            throw new TurnCancelledException("Turn has been cancelled: " + cancelledFor);
+        }
+    }
+
+    /**
+     * Runs the callback on cancellation, at once if the turn is cancelled already.
+     *
+     * @return Unregisters the callback.
+     */
+    public Disposable onCancel(Runnable callback) {
+        synchronized (this) {
+            if (reason == null) {
+                callbacks.add(callback);
+                return () -> {
+                    synchronized (this) {
+                        callbacks.remove(callback);
+                    }
+                };
+            }
+        }
+        callback.run();
+        return () -> {
+        };
+    }
+
+    /**
+     * Runs the action only if the turn has not been cancelled, holding off cancellation meanwhile.
+     */
+    public synchronized void runUnlessCancelled(Runnable action) {
+        throwIfCancelled();
+        action.run();
+    }
+
+    /**
+     * Cancels the source when the turn is cancelled and fails with {@link TurnCancelledException}.
+     */
+    public <T> Mono<T> bind(Mono<T> source) {
+        return source.takeUntilOther(cancelled())
+                .switchIfEmpty(Mono.defer(this::failIfCancelled));
+    }
+
+    public <T> Flux<T> bind(Flux<T> source) {
+        return source.takeUntilOther(cancelled())
+                .concatWith(Mono.defer(this::failIfCancelled));
+    }
+
+    /**
+     * Completes when the turn is cancelled.
+     */
+    public Mono<Void> cancelled() {
+        return Mono.create(sink -> sink.onDispose(onCancel(sink::success)));
+    }
+
+    private <T> Mono<T> failIfCancelled() {
+        String cancelledFor = reason;
+        return cancelledFor == null
+                ? Mono.empty()
+                : Mono.error(new TurnCancelledException("Turn has been cancelled: " + cancelledFor));
+    }
+}
@@ -0,0 +1,27 @@
+package ua.ai_interviewer.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import ua.ai_interviewer.dto.admin.EncoderCacheStatus;
+import ua.ai_interviewer.enums.ChatGPTModel;
+import ua.ai_interviewer.model.Interview;
+
+/**
+ * Builds ChatGPT request bodies, reusing the JSON of messages encoded for earlier turns.
+ */
+public interface ChatGPTRequestEncoder {
+
+    /**
+     * Encodes the request for the interview's context.
+     *
+     * @param maxMessages The number of most recent conversation messages to send; the summary is always sent.
+     */
+    DataBuffer encode(Interview interview, boolean stream, ChatGPTModel model, int maxMessages);
+
+    /**
+     * Encodes the request like {@link #encode} without caching its messages or counting them,
+     * for interviews that are not conversations of a chat, such as the warm-up's.
+     */
+    DataBuffer encodeUncached(Interview interview, boolean stream, ChatGPTModel model, int maxMessages);
+
+    EncoderCacheStatus getStatus();
+}
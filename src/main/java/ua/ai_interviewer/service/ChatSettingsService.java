@@ -0,0 +1,13 @@
+package ua.ai_interviewer.service;
+
+import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.model.ChatSettings;
+
+public interface ChatSettingsService {
+
+    ChatSettings get(String bot, Long chatId);
+
+    ChatSettings setLanguage(String bot, Long chatId, Language language);
+
+    ChatSettings toggleSpeeching(String bot, Long chatId);
+}
@@ -0,0 +1,122 @@
+package ua.ai_interviewer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ua.ai_interviewer.dto.admin.DegradationStatus;
+import ua.ai_interviewer.enums.AudioProfile;
+import ua.ai_interviewer.enums.ChatGPTModel;
+import ua.ai_interviewer.enums.DegradationLevel;
+import ua.ai_interviewer.enums.UpstreamLane;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Trades reply quality for latency under sustained load. Load is sampled as pressure,
+ * the highest ratio of voice jobs in flight to admission capacity and of queued upstream
+ * calls to lane capacity, smoothed over recent samples. The level rises one step when
+ * the pressure exceeds the next level's enter threshold and falls one step when it drops
+ * below the current level's exit threshold, which is lower, so the level does not flap.
+ */
+@Slf4j
+@Service
+public class DegradationController {
+
+    private static final double PRESSURE_WEIGHT = 0.3;
+    private static final DegradationLevel[] LEVELS = DegradationLevel.values();
+
+    private final AdmissionController admissionController;
+    private final UpstreamGovernor upstreamGovernor;
+    private final boolean enabled;
+    private final List<Double> enterThresholds;
+    private final List<Double> exitThresholds;
+    private final int contextMessages;
+    private final ChatGPTModel model;
+    private final ChatGPTModel degradedModel;
+    private volatile DegradationLevel level = DegradationLevel.NONE;
+    private volatile double pressure;
+    private volatile Instant since = Instant.now();
+
+    public DegradationController(AdmissionController admissionController,
+                                 UpstreamGovernor upstreamGovernor,
+                                 @Value("${degradation.enabled:true}") boolean enabled,
+                                 @Value("${degradation.enter-thresholds:0.8,1.0,1.3,1.6}") List<Double> enterThresholds,
+                                 @Value("${degradation.exit-thresholds:0.5,0.7,1.0,1.3}") List<Double> exitThresholds,
+                                 @Value("${degradation.context-messages:10}") int contextMessages,
+                                 @Value("${chat.gpt.model:GPT_TURBO}") ChatGPTModel model,
+                                 @Value("${chat.gpt.degraded-model:GPT_4O_MINI}") ChatGPTModel degradedModel) {
+        if (enterThresholds.size() != LEVELS.length - 1 || exitThresholds.size() != LEVELS.length - 1) {
+            throw new IllegalArgumentException("Expected " + (LEVELS.length - 1) + " enter and exit thresholds");
+        }
+        this.admissionController = admissionController;
+        this.upstreamGovernor = upstreamGovernor;
+        this.enabled = enabled;
+        this.enterThresholds = List.copyOf(enterThresholds);
+        this.exitThresholds = List.copyOf(exitThresholds);
+        this.contextMessages = contextMessages;
+        this.model = model;
+        this.degradedModel = degradedModel;
+    }
+
+    @Scheduled(fixedDelayString = "${degradation.interval:PT2S}")
+    public void evaluate() {
+        if (!enabled) {
+            return;
+        }
+        double smoothed = pressure + PRESSURE_WEIGHT * (samplePressure() - pressure);
+        pressure = smoothed;
+
+        DegradationLevel current = level;
+        int index = current.ordinal();
+        DegradationLevel next = current;
+        if (index + 1 < LEVELS.length && smoothed >= enterThresholds.get(index)) {
+            next = LEVELS[index + 1];
+        } else if (index > 0 && smoothed < exitThresholds.get(index - 1)) {
+            next = LEVELS[index - 1];
+        }
+        if (next != current) {
+            level = next;
+            since = Instant.now();
+            log.warn("Degradation level changed from {} to {} at pressure {}",
+                    current, next, "%.2f".formatted(smoothed));
+        }
+    }
+
+    public DegradationLevel getLevel() {
+        return level;
+    }
+
+    public DegradationStatus getStatus() {
+        return new DegradationStatus(level, pressure, since);
+    }
+
+    public AudioProfile getAudioProfile() {
+        return isActive(DegradationLevel.SPEECH_AUDIO) ? AudioProfile.SPEECH : AudioProfile.MUSIC;
+    }
+
+    public int getContextLimit() {
+        return isActive(DegradationLevel.CAPPED_CONTEXT) ? contextMessages : Integer.MAX_VALUE;
+    }
+
+    public boolean isVoiceReplyAllowed() {
+        return !isActive(DegradationLevel.TEXT_REPLIES);
+    }
+
+    public ChatGPTModel getChatModel() {
+        return isActive(DegradationLevel.CHEAPER_MODEL) ? degradedModel : model;
+    }
+
+    private boolean isActive(DegradationLevel threshold) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    private double samplePressure() {
+        double sample = (double) admissionController.getInFlight() / admissionController.getCapacity();
+        for (UpstreamLane lane : UpstreamLane.values()) {
+            sample = Math.max(sample, (double) upstreamGovernor.getQueued(lane) / upstreamGovernor.getCapacity(lane));
+        }
+        return sample;
+    }
+}
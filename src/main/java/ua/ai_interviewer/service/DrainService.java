@@ -0,0 +1,136 @@
+package ua.ai_interviewer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ua.ai_interviewer.dto.admin.DrainStatus;
+import ua.ai_interviewer.enums.DrainState;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lets in-flight turns finish before the application stops. Draining stops polling for
+ * updates, refuses turns that still arrive and completes once no turn is in flight or the
+ * deadline has passed. It starts on shutdown, ahead of the web server, or from the admin
+ * endpoint.
+ */
+@Slf4j
+@Service
+public class DrainService implements SmartLifecycle {
+
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(1);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicReference<DrainState> state = new AtomicReference<>(DrainState.RUNNING);
+    private final Sinks.Empty<Void> drained = Sinks.empty();
+    private final ObjectProvider<TelegramBotBootstrap> botBootstraps;
+    private final Duration timeout;
+    private volatile Instant startedAt;
+    private volatile boolean running;
+
+    public DrainService(ObjectProvider<TelegramBotBootstrap> botBootstraps,
+                        @Value("${drain.timeout:PT60S}") Duration timeout) {
+        this.botBootstraps = botBootstraps;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Registers a turn, unless the application is draining.
+     *
+     * @return Whether the turn may start; if so, {@link #end()} must follow.
+     */
+    public boolean tryBegin() {
+        inFlight.incrementAndGet();
+        if (state.get() != DrainState.RUNNING) {
+            end();
+            return false;
+        }
+        return true;
+    }
+
+    public void end() {
+        if (inFlight.decrementAndGet() == 0 && state.get() == DrainState.DRAINING) {
+            finish();
+        }
+    }
+
+    /**
+     * Starts draining, if not started yet.
+     *
+     * @return Completes when no turn is in flight or the deadline has passed.
+     */
+    public synchronized Mono<Void> drain() {
+        if (state.compareAndSet(DrainState.RUNNING, DrainState.DRAINING)) {
+            startedAt = Instant.now();
+            botBootstraps.ifAvailable(TelegramBotBootstrap::stop);
+            log.info("Draining, stopped polling for updates, {} turns in flight", inFlight.get());
+            if (inFlight.get() == 0) {
+                finish();
+            }
+            Flux.interval(PROGRESS_INTERVAL)
+                    .takeUntilOther(drained.asMono())
+                    .subscribe(tick -> log.info("Draining, {} turns in flight", inFlight.get()));
+        }
+        Duration remaining = Duration.between(Instant.now(), deadline());
+        return drained.asMono()
+                .timeout(remaining.isNegative() ? Duration.ZERO : remaining,
+                        Mono.fromRunnable(() -> log.warn("Drain deadline of {} passed with {} turns in flight",
+                                timeout, inFlight.get())));
+    }
+
+    public DrainStatus getStatus() {
+        Instant started = startedAt;
+        return new DrainStatus(state.get(), inFlight.get(), started, started == null ? null : deadline());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        drain().block();
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        drain().doFinally(signal -> {
+            running = false;
+            callback.run();
+        }).subscribe();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops ahead of the graceful web server shutdown, which runs in a lower phase.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    private void finish() {
+        if (state.compareAndSet(DrainState.DRAINING, DrainState.DRAINED)) {
+            log.info("Drained in {}ms", Duration.between(startedAt, Instant.now()).toMillis());
+            drained.tryEmitEmpty();
+        }
+    }
+
+    private Instant deadline() {
+        return startedAt.plus(timeout);
+    }
+}
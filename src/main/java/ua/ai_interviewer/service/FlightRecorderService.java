@@ -0,0 +1,158 @@
+package ua.ai_interviewer.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+import ua.ai_interviewer.dto.telegram.TurnSummary;
+import ua.ai_interviewer.jfr.TurnEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Keeps a continuous in-memory flight recording of the last few minutes and writes it
+ * to a file when a voice turn breaches the latency threshold, so tail latency can be
+ * analysed afterwards without attaching a profiler.
+ */
+@Slf4j
+@Service
+public class FlightRecorderService {
+
+    private static final Logger TURN_LOG = LoggerFactory.getLogger("ua.ai_interviewer.turn");
+    private static final DateTimeFormatter DUMP_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+            .withZone(ZoneOffset.UTC);
+
+    private final AtomicLong lastDumpNanos = new AtomicLong(System.nanoTime() - Duration.ofDays(1).toNanos());
+    private final boolean enabled;
+    private final String settings;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final long slowTurnNanos;
+    private final long dumpIntervalNanos;
+    private final Path dumpDirectory;
+    private volatile Recording recording;
+
+    public FlightRecorderService(@Value("${jfr.enabled:true}") boolean enabled,
+                                 @Value("${jfr.settings:default}") String settings,
+                                 @Value("${jfr.max-age:PT5M}") Duration maxAge,
+                                 @Value("${jfr.max-size-mb:64}") long maxSizeMb,
+                                 @Value("${jfr.slow-turn-threshold:PT20S}") Duration slowTurnThreshold,
+                                 @Value("${jfr.dump-min-interval:PT1M}") Duration dumpMinInterval,
+                                 @Value("${jfr.dump-directory:recordings}") String dumpDirectory) {
+        this.enabled = enabled;
+        this.settings = settings;
+        this.maxAge = maxAge;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.slowTurnNanos = slowTurnThreshold.toNanos();
+        this.dumpIntervalNanos = dumpMinInterval.toNanos();
+        this.dumpDirectory = Path.of(dumpDirectory);
+    }
+
+    @PostConstruct
+    private void start() {
+        if (!enabled || !FlightRecorder.isAvailable()) {
+            log.info("Continuous flight recording is disabled");
+            return;
+        }
+        try {
+            Recording continuous = new Recording(Configuration.getConfiguration(settings));
+            continuous.setName("continuous");
+            continuous.setToDisk(true);
+            continuous.setMaxAge(maxAge);
+            continuous.setMaxSize(maxSizeBytes);
+            continuous.start();
+            recording = continuous;
+            log.info("Started continuous flight recording with '{}' settings, keeping {}", settings, maxAge);
+        } catch (IOException | ParseException e) {
+            log.error("Could not start continuous flight recording", e);
+        }
+    }
+
+    @PreDestroy
+    private void stop() {
+        Recording continuous = recording;
+        recording = null;
+        if (continuous != null) {
+            continuous.close();
+        }
+    }
+
+    /**
+     * Records the turn as a {@link TurnEvent}, logs its summary and dumps the recording when it was slow.
+     */
+    public <T> Mono<T> recordTurn(String bot, long chatId, Function<TurnEvent, Mono<T>> turn) {
+        return Mono.defer(() -> {
+            TurnEvent event = TurnEvent.start(bot, chatId);
+            TurnSummary summary = new TurnSummary();
+            long started = System.nanoTime();
+            return turn.apply(event)
+                    .doOnError(e -> event.fail())
+                    .doFinally(signal -> {
+                        event.commit();
+                        long elapsed = System.nanoTime() - started;
+                        TURN_LOG.info("bot={} chat={} voice={}s size={}B total={}ms outcome={} stages: {}",
+                                bot, chatId, event.getVoiceSeconds(), event.getVoiceBytes(),
+                                Duration.ofNanos(elapsed).toMillis(), outcome(signal), summary);
+                        turnCompleted(chatId, elapsed);
+                    })
+                    .contextWrite(Context.of(TurnSummary.class, summary));
+        });
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancelled";
+            default -> "ok";
+        };
+    }
+
+    private void turnCompleted(long chatId, long elapsedNanos) {
+        if (elapsedNanos < slowTurnNanos || recording == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastDumpNanos.get();
+        if (now - last < dumpIntervalNanos || !lastDumpNanos.compareAndSet(last, now)) {
+            log.debug("Slow turn of {}ms for chat id {}, recording was dumped recently",
+                    Duration.ofNanos(elapsedNanos).toMillis(), chatId);
+            return;
+        }
+        Schedulers.boundedElastic().schedule(() -> dump(chatId, elapsedNanos));
+    }
+
+    private void dump(long chatId, long elapsedNanos) {
+        Recording continuous = recording;
+        if (continuous == null) {
+            return;
+        }
+        Path file = dumpDirectory.resolve("slow-turn-%s-%d.jfr".formatted(DUMP_TIME.format(Instant.now()), chatId));
+        try {
+            Files.createDirectories(dumpDirectory);
+            continuous.dump(file);
+            log.warn("Turn for chat id {} took {}ms, flight recording dumped to {}",
+                    chatId, Duration.ofNanos(elapsedNanos).toMillis(), file.toAbsolutePath());
+        } catch (IOException | IllegalStateException e) {
+            log.error("Could not dump flight recording to {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package ua.ai_interviewer.service;
+
+public interface InterviewArchiveService {
+
+    int archiveInactive();
+}
@@ -1,19 +1,42 @@
 package ua.ai_interviewer.service;
 
-import ua.ai_interviewer.enums.Language;
+import reactor.util.context.ContextView;
+import ua.ai_interviewer.dto.chatgpt.ChatMessage;
 import ua.ai_interviewer.exception.InterviewNotFoundException;
 import ua.ai_interviewer.model.Interview;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface InterviewService {
 
 
-    Interview getActiveIfExistOrCreateByChatId(Long chatId);
+    Interview getActiveIfExistOrCreateByChatId(String bot, Long chatId);
 
     void update(Interview interview);
 
-    Optional<Interview> getActiveByChatId(Long chatId) throws InterviewNotFoundException;
+    /**
+     * Moves the messages beyond the tail window to conversation pages and folds them into the
+     * summary. Done by {@link #update} as well; calling it first keeps the summary call out of
+     * whatever the save runs under.
+     *
+     * @param context The subscriber context of the turn, so the summary call is recorded as one of its stages.
+     */
+    void archiveOverflow(Interview interview, ContextView context);
 
-    Interview create(Long chatId, Language language, boolean speeching);
+    Optional<Interview> getActiveByChatId(String bot, Long chatId) throws InterviewNotFoundException;
+
+    Interview create(String bot, Long chatId);
+
+    /**
+     * Assigns interviews stored before bots had names to the bot. Unnamed interviews stored
+     * later, by an instance of an older version, are claimed by the legacy bot when read.
+     *
+     * @return The number of interviews assigned.
+     */
+    long assignUnnamed(String bot);
+
+    List<ChatMessage> getConversationPage(Interview interview, int number);
+
+    List<ChatMessage> getFullConversation(Interview interview);
 }
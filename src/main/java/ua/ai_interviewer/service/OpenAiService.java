@@ -1,21 +1,33 @@
 package ua.ai_interviewer.service;
 
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 import ua.ai_interviewer.dto.chatgpt.ChatGPTResponse;
 import ua.ai_interviewer.dto.chatgpt.ChatMessage;
-import ua.ai_interviewer.dto.wisper.WisperResponse;
 import ua.ai_interviewer.exception.OpenAIRequestException;
 import ua.ai_interviewer.exception.TooManyRequestsException;
+import ua.ai_interviewer.model.Interview;
 
-import java.io.File;
 import java.util.List;
 
 public interface OpenAiService {
 
-    ChatGPTResponse getResponseFromGpt(List<ChatMessage> conversation) throws OpenAIRequestException, TooManyRequestsException;
-
-    WisperResponse transcribe(File file, String language) throws OpenAIRequestException, TooManyRequestsException;
+    /**
+     * Blocks for the reply to the interview.
+     *
+     * @param context The subscriber context of the turn, so the call is recorded as one of its stages.
+     */
+    ChatGPTResponse getResponseFromGpt(Interview interview, CancellationToken token, ContextView context)
+            throws OpenAIRequestException, TooManyRequestsException;
 
     ChatMessage createMessage(String content);
 
+    /**
+     * Condenses the summary so far and the messages leaving the tail window into a new summary.
+     *
+     * @param summary The current summary, null if there is none yet.
+     */
+    Mono<ChatGPTResponse> summarize(Long chatId, String summary, List<ChatMessage> messages);
+
 }
 
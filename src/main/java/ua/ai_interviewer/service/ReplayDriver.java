@@ -0,0 +1,194 @@
+package ua.ai_interviewer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.objects.*;
+import ua.ai_interviewer.dto.telegram.TurnCompletedEvent;
+import ua.ai_interviewer.dto.traffic.TrafficRecord;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a traffic recording through {@link TelegramBotService#onUpdateReceived} of the first
+ * bot against the stand-in upstreams of the {@code replay} profile, at the recorded pace divided by
+ * {@code traffic.replay.speed}, and reports turn latency and throughput.
+ * Voice replies are replayed as text replies, as text-to-speech has no local stand-in.
+ */
+@Slf4j
+@Service
+@Profile("replay")
+@RequiredArgsConstructor
+public class ReplayDriver {
+
+    /**
+     * Replayed chats get ids far from real ones, so a shared database is not mixed up.
+     */
+    private static final long CHAT_ID_BASE = 9_000_000_000L;
+    private static final double[] PERCENTILES = {50, 90, 99, 100};
+
+    private final TelegramBotRegistry telegramBotRegistry;
+    private final ChatSettingsService chatSettingsService;
+    private final ReplayTimings replayTimings;
+    private final ApplicationContext applicationContext;
+    private final Map<Integer, String> kinds = new ConcurrentHashMap<>();
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    private final Set<Integer> failed = ConcurrentHashMap.newKeySet();
+    private volatile CountDownLatch remaining = new CountDownLatch(0);
+    @Value("${traffic.replay.timeout:PT10M}")
+    private Duration timeout;
+    @Value("${traffic.replay.report:traffic/replay-report.txt}")
+    private String reportFile;
+    @Value("${traffic.replay.exit-on-finish:true}")
+    private boolean exitOnFinish;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread driver = new Thread(this::replay, "traffic-replay");
+        driver.setDaemon(true);
+        driver.start();
+    }
+
+    @EventListener
+    public void onTurnCompleted(TurnCompletedEvent event) {
+        String kind = kinds.remove(event.updateId());
+        if (kind == null) {
+            return;
+        }
+        latencies.computeIfAbsent(kind, k -> Collections.synchronizedList(new ArrayList<>())).add(event.durationNanos());
+        if (event.failed()) {
+            failed.add(event.updateId());
+        }
+        remaining.countDown();
+    }
+
+    private void replay() {
+        List<TrafficRecord> updates = replayTimings.getUpdates().stream()
+                .filter(update -> !"callback".equals(update.kind()) || update.command() != null)
+                .toList();
+        remaining = new CountDownLatch(updates.size());
+        log.info("Replaying {} updates at {}x", updates.size(), replayTimings.getSpeed());
+
+        long origin = updates.isEmpty() ? 0 : updates.get(0).at();
+        TelegramBotService bot = telegramBotRegistry.getBots().iterator().next();
+        long started = System.nanoTime();
+        int updateId = 0;
+        for (TrafficRecord trafficRecord : updates) {
+            long due = started + replayTimings.scale(trafficRecord.at() - origin).toNanos();
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            updateId++;
+            kinds.put(updateId, trafficRecord.kind());
+            bot.onUpdateReceived(toUpdate(bot.getName(), updateId, trafficRecord));
+        }
+
+        boolean completed;
+        try {
+            completed = remaining.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completed = false;
+        }
+        report(updates.size(), System.nanoTime() - started, completed);
+
+        if (exitOnFinish) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private Update toUpdate(String bot, int updateId, TrafficRecord trafficRecord) {
+        long chatId = CHAT_ID_BASE + trafficRecord.chat();
+        if (chatSettingsService.get(bot, chatId).isSpeeching()) {
+            chatSettingsService.toggleSpeeching(bot, chatId);
+        }
+
+        Message message = new Message();
+        message.setMessageId(updateId);
+        message.setDate((int) Instant.now().getEpochSecond());
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        chat.setType("private");
+        message.setChat(chat);
+
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        switch (trafficRecord.kind()) {
+            case "voice" -> {
+                Voice voice = new Voice();
+                voice.setFileId("replay-%d-%d".formatted(updateId, trafficRecord.seconds()));
+                voice.setFileUniqueId("replay-" + updateId);
+                voice.setDuration(trafficRecord.seconds());
+                voice.setFileSize(trafficRecord.bytes());
+                message.setVoice(voice);
+                update.setMessage(message);
+            }
+            case "callback" -> {
+                CallbackQuery callbackQuery = new CallbackQuery();
+                callbackQuery.setId(String.valueOf(updateId));
+                callbackQuery.setData(trafficRecord.command());
+                callbackQuery.setMessage(message);
+                update.setCallbackQuery(callbackQuery);
+            }
+            default -> {
+                message.setText(trafficRecord.command() != null
+                        ? trafficRecord.command()
+                        : "x".repeat((int) Math.max(1, trafficRecord.bytes())));
+                update.setMessage(message);
+            }
+        }
+        return update;
+    }
+
+    private void report(int sent, long elapsedNanos, boolean completed) {
+        double seconds = elapsedNanos / 1e9;
+        int done = latencies.values().stream().mapToInt(List::size).sum();
+        StringBuilder report = new StringBuilder()
+                .append("Replay of ").append(sent).append(" updates at ").append(replayTimings.getSpeed()).append("x")
+                .append(completed ? "" : ", timed out with " + (sent - done) + " unfinished").append('\n')
+                .append("wall time %.1fs, throughput %.2f updates/s, %d failed%n"
+                        .formatted(seconds, done / seconds, failed.size()));
+        new TreeMap<>(latencies).forEach((kind, values) -> report.append(line(kind, values)));
+        report.append(line("all", latencies.values().stream().flatMap(List::stream).toList()));
+
+        log.info("\n{}", report);
+        try {
+            Path file = Path.of(reportFile);
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.writeString(file, report);
+        } catch (IOException e) {
+            log.error("Could not write replay report to {}", reportFile, e);
+        }
+    }
+
+    private static String line(String kind, List<Long> values) {
+        long[] sorted;
+        synchronized (values) {
+            sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        StringBuilder line = new StringBuilder("%-8s n=%-6d".formatted(kind, sorted.length));
+        for (double percentile : PERCENTILES) {
+            long value = sorted.length == 0 ? 0
+                    : sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile / 100 * sorted.length) - 1)];
+            line.append(" %s=%dms".formatted(percentile == 100 ? "max" : "p" + (int) percentile,
+                    Duration.ofNanos(value).toMillis()));
+        }
+        return line.append('\n').toString();
+    }
+}
@@ -0,0 +1,66 @@
+package ua.ai_interviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import ua.ai_interviewer.dto.traffic.TrafficRecord;
+import ua.ai_interviewer.util.TrafficUtil;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Holds a traffic recording for replay. Updates are replayed by {@link ReplayDriver};
+ * the recorded upstream stages are handed out in recorded order, per stage, to the
+ * stand-in upstreams, so each run sees the same sequence of upstream timings.
+ */
+@Slf4j
+@Service
+@Profile("replay")
+public class ReplayTimings {
+
+    @Getter
+    private final List<TrafficRecord> updates;
+    @Getter
+    private final double speed;
+    private final Map<String, List<TrafficRecord>> stages;
+    private final Map<String, AtomicInteger> positions = new ConcurrentHashMap<>();
+
+    public ReplayTimings(ObjectMapper objectMapper,
+                         @Value("${traffic.replay.file}") String file,
+                         @Value("${traffic.replay.speed:1.0}") double speed) throws IOException {
+        List<TrafficRecord> records = TrafficUtil.read(Path.of(file), objectMapper);
+        this.speed = speed;
+        this.updates = records.stream().filter(TrafficRecord::isUpdate).toList();
+        this.stages = records.stream()
+                .filter(trafficRecord -> !trafficRecord.isUpdate())
+                .collect(Collectors.groupingBy(TrafficRecord::stage));
+        log.info("Loaded {} updates and {} upstream stages from {}",
+                updates.size(), records.size() - updates.size(), file);
+    }
+
+    /**
+     * Returns the next recorded occurrence of the stage, starting over when all were used.
+     */
+    public TrafficRecord next(String stage) {
+        List<TrafficRecord> recorded = stages.get(stage);
+        if (recorded == null || recorded.isEmpty()) {
+            return TrafficRecord.stage(0, 0, stage, 0, 0, 0);
+        }
+        int position = positions.computeIfAbsent(stage, name -> new AtomicInteger()).getAndIncrement();
+        return recorded.get(Math.floorMod(position, recorded.size()));
+    }
+
+    public Duration scale(long millis) {
+        return Duration.ofNanos((long) (millis * 1_000_000L / speed));
+    }
+}
@@ -0,0 +1,206 @@
+package ua.ai_interviewer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ua.ai_interviewer.dto.admin.ResponseCacheStatus;
+import ua.ai_interviewer.dto.chatgpt.CachedResponse;
+import ua.ai_interviewer.dto.chatgpt.ChatMessage;
+import ua.ai_interviewer.enums.ChatGPTModel;
+import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.enums.Role;
+import ua.ai_interviewer.model.Interview;
+import ua.ai_interviewer.util.LogRedactor;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replies to context-free prompts, i.e. the first message of a fresh interview, which are
+ * the same for every chat asking the same question. Entries are keyed by the normalized
+ * prompt, the language and the model, expire after {@code response-cache.ttl} and the
+ * least recently used ones are evicted beyond {@code response-cache.max-entries}.
+ * The synthesized voice of a reply is kept with its text once it has been made. Cached
+ * voices keep their share of the audio buffer budget and are dropped, least recently
+ * used first, beyond {@code response-cache.max-voice-bytes}.
+ */
+@Slf4j
+@Service
+public class ResponseCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final int maxPromptLength;
+    private final long ttlNanos;
+    private final long maxVoiceBytes;
+    private final Map<Key, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong voiceHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile int size;
+    // written under the entries' lock, volatile for the status
+    private volatile long voiceBytes;
+
+    public ResponseCache(@Value("${response-cache.enabled:true}") boolean enabled,
+                         @Value("${response-cache.max-entries:1000}") int maxEntries,
+                         @Value("${response-cache.max-prompt-length:200}") int maxPromptLength,
+                         @Value("${response-cache.ttl:PT6H}") Duration ttl,
+                         @Value("${response-cache.max-voice-bytes:8388608}") long maxVoiceBytes) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxPromptLength = maxPromptLength;
+        this.ttlNanos = ttl.toNanos();
+        this.maxVoiceBytes = maxVoiceBytes;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    dropVoice(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The key of the interview's next reply, if the reply depends on the current user message only.
+     */
+    public Optional<Key> keyFor(Interview interview, Language language, ChatGPTModel model) {
+        if (!enabled || interview.getArchivedMessages() > 0
+                || (interview.getSummary() != null && !interview.getSummary().isBlank())) {
+            return Optional.empty();
+        }
+        List<ChatMessage> conversation = interview.getConversation();
+        if (conversation.size() != 1 || !Role.USER.value.equals(conversation.get(0).getRole())) {
+            return Optional.empty();
+        }
+        String prompt = normalize(conversation.get(0).getContent());
+        if (prompt.isEmpty() || prompt.length() > maxPromptLength) {
+            return Optional.empty();
+        }
+        return Optional.of(new Key(prompt, language, model));
+    }
+
+    public Optional<CachedResponse> get(Key key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.createdNanos > ttlNanos) {
+                entries.remove(key);
+                size = entries.size();
+                evictions.incrementAndGet();
+                dropVoice(entry);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        log.debug("Response cache hit for prompt '{}'", LogRedactor.redact(key.prompt()));
+        return Optional.of(new CachedResponse(entry.text));
+    }
+
+    /**
+     * The cached voice of the reply, retained for the caller, who releases it once it has been sent.
+     */
+    public Optional<AudioBuffer> getVoice(Key key, String text) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.voice == null || !entry.text.equals(text)) {
+                return Optional.empty();
+            }
+            voiceHits.incrementAndGet();
+            return Optional.of(entry.voice.retain());
+        }
+    }
+
+    public void putText(Key key, String text) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.putIfAbsent(key, new Entry(text, System.nanoTime()));
+            size = entries.size();
+        }
+    }
+
+    /**
+     * Keeps a reference to the voice of a cached text reply; ignored if the entry is gone, has
+     * another text or a voice already, or if the voice alone exceeds the byte limit.
+     */
+    public void putVoice(Key key, String text, AudioBuffer voice) {
+        if (voice.size() > maxVoiceBytes) {
+            return;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.voice != null || !entry.text.equals(text)) {
+                return;
+            }
+            entry.voice = voice.retain();
+            voiceBytes += voice.size();
+            // access order: the eldest entries come first
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (voiceBytes > maxVoiceBytes && eldest.hasNext()) {
+                dropVoice(eldest.next());
+            }
+        }
+    }
+
+    public ResponseCacheStatus getStatus() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        return new ResponseCacheStatus(size, maxEntries, voiceBytes, maxVoiceBytes, hitCount, voiceHits.get(),
+                misses.get(), lookups == 0 ? 0 : (double) hitCount / lookups, evictions.get());
+    }
+
+    /**
+     * Called under the entries' lock.
+     */
+    private void dropVoice(Entry entry) {
+        if (entry.voice != null) {
+            voiceBytes -= entry.voice.size();
+            entry.voice.release();
+            entry.voice = null;
+        }
+    }
+
+    /**
+     * Case, punctuation and spacing do not change the question.
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT)
+                .replaceAll("[\\p{Punct}«»…¿¡]", " ")
+                .replaceAll("\\s+", " ")
+                .strip();
+    }
+
+    public record Key(String prompt, Language language, ChatGPTModel model) {
+    }
+
+    private static final class Entry {
+
+        private final String text;
+        private final long createdNanos;
+        private AudioBuffer voice;
+
+        private Entry(String text, long createdNanos) {
+            this.text = text;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ua.ai_interviewer.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import ua.ai_interviewer.dto.admin.RuntimeStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Assembles a live view of the instance for the admin endpoint. Every part is read from
+ * volatile or atomic state, so a snapshot never waits for, or holds up, a turn.
+ */
+@Service
+@RequiredArgsConstructor
+public class RuntimeIntrospector {
+
+    private final TurnRegistry turnRegistry;
+    private final UpstreamGovernor upstreamGovernor;
+    private final AdmissionController admissionController;
+    private final AudioBufferManager audioBufferManager;
+    private final DrainService drainService;
+    private final DegradationController degradationController;
+    private final SpeechToTextRouter speechToTextRouter;
+    private final ResponseCache responseCache;
+    private final ChatGPTRequestEncoder chatGPTRequestEncoder;
+
+    public RuntimeStatus snapshot() {
+        return new RuntimeStatus(Instant.now(), turnRegistry.getStatus(), turnRegistry.getCancelled(),
+                upstreamGovernor.getStatus(), admissionController.getStatus(), audioBufferManager.getStatus(),
+                drainService.getStatus(), degradationController.getStatus(), speechToTextRouter.getStatus(),
+                responseCache.getStatus(), chatGPTRequestEncoder.getStatus());
+    }
+
+    /**
+     * A snapshot now and then every interval; ticks a slow subscriber cannot take are skipped.
+     */
+    public Flux<RuntimeStatus> stream(Duration interval) {
+        return Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .map(tick -> snapshot());
+    }
+}
@@ -0,0 +1,36 @@
+package ua.ai_interviewer.service;
+
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.enums.UpstreamLane;
+
+import java.io.File;
+
+/**
+ * A speech-to-text engine. Every provider bean is registered with {@link SpeechToTextRouter},
+ * which picks one per clip.
+ */
+public interface SpeechToTextProvider {
+
+    String getName();
+
+    /**
+     * The lane of {@link UpstreamGovernor} that bounds concurrent calls to the engine.
+     */
+    UpstreamLane getLane();
+
+    /**
+     * The longest clip, in seconds of speech, the provider is picked for.
+     */
+    double getMaxClipSeconds();
+
+    /**
+     * Seconds of processing per second of speech expected before any call has been observed.
+     */
+    double getInitialRealTimeFactor();
+
+    /**
+     * @param chatId the chat the clip belongs to, recorded with the stage
+     */
+    Mono<String> transcribe(long chatId, File audio, Language language);
+}
@@ -0,0 +1,161 @@
+package ua.ai_interviewer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.dto.admin.SpeechToTextStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Picks a {@link SpeechToTextProvider} per clip. Providers whose clip limit covers the clip
+ * are ranked by their expected latency, the smoothed real-time factor times the clip
+ * duration, raised by their error rate. A provider failing more often than
+ * {@code stt.router.error-threshold} is only used as a fallback, except for one probe call
+ * per {@code stt.router.probe-interval}. A failed call is retried once with the next provider.
+ */
+@Slf4j
+@Service
+public class SpeechToTextRouter {
+
+    private static final double LATENCY_WEIGHT = 0.2;
+    private static final double ERROR_WEIGHT = 0.1;
+    private static final double MIN_CLIP_SECONDS = 1;
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final List<Route> routes;
+    private final double errorThreshold;
+    private final long probeIntervalNanos;
+
+    public SpeechToTextRouter(List<SpeechToTextProvider> providers,
+                              @Value("${stt.router.error-threshold:0.5}") double errorThreshold,
+                              @Value("${stt.router.probe-interval:PT30S}") Duration probeInterval) {
+        this.errorThreshold = errorThreshold;
+        this.probeIntervalNanos = probeInterval.toNanos();
+        this.routes = providers.stream().map(Route::new).toList();
+        log.info("Speech-to-text providers: {}", providers.stream().map(SpeechToTextProvider::getName).toList());
+    }
+
+    /**
+     * Runs the call with the best provider for the clip, falling back to the next one on failure.
+     * Only the call itself is timed for the provider's latency, not the wait for its permit.
+     *
+     * @param speechSeconds The duration of speech in the clip.
+     * @param call          Transcribes the clip with the given provider.
+     * @param permit        Runs the call of the given provider once a permit for it is available.
+     */
+    public Mono<String> transcribe(double speechSeconds, Function<SpeechToTextProvider, Mono<String>> call,
+                                   BiFunction<SpeechToTextProvider, Mono<String>, Mono<String>> permit) {
+        return Mono.defer(() -> attempt(rank(speechSeconds), 0, speechSeconds, call, permit));
+    }
+
+    public List<SpeechToTextStatus> getStatus() {
+        return routes.stream().map(Route::status).toList();
+    }
+
+    private Mono<String> attempt(List<Route> candidates, int index, double speechSeconds,
+                                 Function<SpeechToTextProvider, Mono<String>> call,
+                                 BiFunction<SpeechToTextProvider, Mono<String>, Mono<String>> permit) {
+        Route route = candidates.get(index);
+        Mono<String> timed = Mono.defer(() -> {
+            long started = System.nanoTime();
+            return call.apply(route.provider)
+                    .doOnNext(text -> route.succeeded(System.nanoTime() - started, speechSeconds))
+                    .doOnError(e -> route.failed());
+        });
+        return permit.apply(route.provider, timed)
+                .onErrorResume(e -> index + 1 < Math.min(candidates.size(), MAX_ATTEMPTS), e -> {
+                    log.warn("Transcription by {} failed, falling back to {}: {}", route.provider.getName(),
+                            candidates.get(index + 1).provider.getName(), e.getMessage());
+                    return attempt(candidates, index + 1, speechSeconds, call, permit);
+                });
+    }
+
+    /**
+     * Preferred providers by expected latency, then the others by expected latency.
+     */
+    private List<Route> rank(double speechSeconds) {
+        List<Route> fitting = routes.stream()
+                .filter(route -> route.provider.getMaxClipSeconds() >= speechSeconds)
+                .toList();
+        long now = System.nanoTime();
+        List<Ranked> ranked = new ArrayList<>();
+        for (Route route : fitting.isEmpty() ? routes : fitting) {
+            ranked.add(new Ranked(route, !route.isPreferred(now), route.expectedSeconds(speechSeconds)));
+        }
+        ranked.sort(Comparator.comparing(Ranked::fallback).thenComparingDouble(Ranked::expectedSeconds));
+        return ranked.stream().map(Ranked::route).toList();
+    }
+
+    private record Ranked(Route route, boolean fallback, double expectedSeconds) {
+    }
+
+    private final class Route {
+
+        private final SpeechToTextProvider provider;
+        private double realTimeFactor;
+        private double errorRate;
+        private long calls;
+        private long failures;
+        private long lastProbeNanos = System.nanoTime();
+        private volatile SpeechToTextStatus status;
+
+        private Route(SpeechToTextProvider provider) {
+            this.provider = provider;
+            this.realTimeFactor = provider.getInitialRealTimeFactor();
+            publishStatus();
+        }
+
+        private synchronized double expectedSeconds(double speechSeconds) {
+            return realTimeFactor * Math.max(speechSeconds, MIN_CLIP_SECONDS) * (1 + errorRate);
+        }
+
+        /**
+         * Healthy providers are preferred; an unhealthy one is preferred once per probe interval.
+         */
+        private synchronized boolean isPreferred(long now) {
+            if (errorRate < errorThreshold) {
+                return true;
+            }
+            if (now - lastProbeNanos >= probeIntervalNanos) {
+                lastProbeNanos = now;
+                log.info("Probing speech-to-text provider {}, error rate {}", provider.getName(), errorRate);
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void succeeded(long elapsedNanos, double speechSeconds) {
+            calls++;
+            double factor = elapsedNanos / 1e9 / Math.max(speechSeconds, MIN_CLIP_SECONDS);
+            realTimeFactor += LATENCY_WEIGHT * (factor - realTimeFactor);
+            errorRate -= ERROR_WEIGHT * errorRate;
+            publishStatus();
+        }
+
+        private synchronized void failed() {
+            calls++;
+            failures++;
+            errorRate += ERROR_WEIGHT * (1 - errorRate);
+            publishStatus();
+        }
+
+        /**
+         * Published on every change, so the status is read without locking the route.
+         */
+        private void publishStatus() {
+            status = new SpeechToTextStatus(provider.getName(), provider.getLane(), provider.getMaxClipSeconds(),
+                    realTimeFactor, errorRate, calls, failures, errorRate < errorThreshold);
+        }
+
+        private SpeechToTextStatus status() {
+            return status;
+        }
+    }
+}
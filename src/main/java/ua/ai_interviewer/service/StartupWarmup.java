@@ -0,0 +1,137 @@
+package ua.ai_interviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.dto.chatgpt.ChatGPTResponse;
+import ua.ai_interviewer.dto.chatgpt.ChatMessage;
+import ua.ai_interviewer.dto.chatgpt.StreamResponse;
+import ua.ai_interviewer.enums.ChatGPTModel;
+import ua.ai_interviewer.enums.Role;
+import ua.ai_interviewer.model.Interview;
+import ua.ai_interviewer.util.LogRedactor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optional warm-up that runs before the application reports ready and before the bot
+ * starts polling: it exercises the JSON paths of a turn until they are compiled and opens
+ * pooled connections to the upstreams. With {@code startup.training-run} it only exercises
+ * the JSON paths and exits, for recording a class data sharing archive at build time.
+ */
+@Slf4j
+@Service
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final String UPDATE_JSON = """
+            {"update_id":1,"message":{"message_id":1,"date":0,"chat":{"id":1,"type":"private"},
+            "voice":{"file_id":"warmup","file_unique_id":"warmup","duration":3,"file_size":1024}}}""";
+    private static final String STREAM_JSON = """
+            {"choices":[{"delta":{"content":"warm"},"finish_reason":null}]}""";
+    private static final String RESPONSE_JSON = """
+            {"model":"warmup","choices":[{"message":{"role":"assistant","content":"warm"}}],
+            "usage":{"prompt_tokens":1,"completion_tokens":1,"total_tokens":2}}""";
+
+    private final ObjectMapper objectMapper;
+    private final ChatGPTRequestEncoder chatGPTRequestEncoder;
+    private final WebClient webClient;
+    private final ApplicationContext applicationContext;
+    private final boolean enabled;
+    private final boolean trainingRun;
+    private final int iterations;
+    private final int connections;
+    private final Duration timeout;
+    private final List<String> upstreams;
+
+    public StartupWarmup(ObjectMapper objectMapper,
+                         ChatGPTRequestEncoder chatGPTRequestEncoder,
+                         WebClient webClient,
+                         ApplicationContext applicationContext,
+                         @Value("${startup.warmup.enabled:false}") boolean enabled,
+                         @Value("${startup.training-run:false}") boolean trainingRun,
+                         @Value("${startup.warmup.iterations:500}") int iterations,
+                         @Value("${startup.warmup.connections:4}") int connections,
+                         @Value("${startup.warmup.timeout:PT10S}") Duration timeout,
+                         @Value("${telegram.api.uri:https://api.telegram.org}") String telegramUri,
+                         @Value("${openai.api.uri:https://api.openai.com}") String openAiUri) {
+        this.objectMapper = objectMapper;
+        this.chatGPTRequestEncoder = chatGPTRequestEncoder;
+        this.webClient = webClient;
+        this.applicationContext = applicationContext;
+        this.enabled = enabled;
+        this.trainingRun = trainingRun;
+        this.iterations = iterations;
+        this.connections = connections;
+        this.timeout = timeout;
+        this.upstreams = List.of(telegramUri, openAiUri);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!enabled && !trainingRun) {
+            return;
+        }
+        long started = System.nanoTime();
+        exerciseSerializers();
+        if (trainingRun) {
+            log.info("Training run finished in {}ms, exiting", Duration.ofNanos(System.nanoTime() - started).toMillis());
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+        openConnections();
+        log.info("Warmed up in {}ms", Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    private void exerciseSerializers() throws Exception {
+        Interview interview = Interview.builder()
+                .id("warmup")
+                .chatId(0L)
+                .conversation(new ArrayList<>(List.of(
+                        ChatMessage.builder().role(Role.USER.value).content("warm").build(),
+                        ChatMessage.builder().role(Role.ASSISTANT.value).content("up").build())))
+                .build();
+        SendMessage sendMessage = new SendMessage();
+        sendMessage.setChatId(1L);
+        sendMessage.setText("warm up");
+
+        for (int i = 0; i < iterations; i++) {
+            objectMapper.readValue(UPDATE_JSON, Update.class);
+            objectMapper.readValue(STREAM_JSON, StreamResponse.class);
+            objectMapper.readValue(RESPONSE_JSON, ChatGPTResponse.class);
+            objectMapper.writeValueAsString(sendMessage);
+            DataBufferUtils.release(chatGPTRequestEncoder.encodeUncached(interview, i % 2 == 0,
+                    ChatGPTModel.GPT_TURBO, Integer.MAX_VALUE));
+            LogRedactor.redact(STREAM_JSON);
+        }
+    }
+
+    /**
+     * Any response will do; the point is the TLS handshakes and the pooled connections they leave behind.
+     */
+    private void openConnections() {
+        Flux.fromIterable(upstreams)
+                .flatMap(uri -> Flux.range(0, connections)
+                        .flatMap(i -> webClient.head()
+                                .uri(uri)
+                                .exchangeToMono(response -> response.releaseBody())
+                                .onErrorResume(e -> {
+                                    log.debug("Warm-up request to {} failed: {}", uri, e.getMessage());
+                                    return Mono.empty();
+                                })))
+                .then()
+                .timeout(timeout, Mono.fromRunnable(() -> log.warn("Warm-up connections took longer than {}", timeout)))
+                .block();
+    }
+}
@@ -0,0 +1,21 @@
+package ua.ai_interviewer.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.File;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.Serializable;
+
+public interface TelegramApiClient {
+
+    <T extends Serializable> Mono<T> execute(BotApiMethod<T> method);
+
+    Mono<Message> sendVoice(Long chatId, Integer replyToMessageId, Flux<DataBuffer> voice);
+
+    Mono<File> getFile(String fileId);
+
+    Flux<DataBuffer> downloadFile(String filePath);
+}
@@ -0,0 +1,74 @@
+package ua.ai_interviewer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ua.ai_interviewer.config.TelegramBotsProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registers the bots' commands and starts polling once the application is ready, off the
+ * startup thread, so context creation does not wait for the Telegram API. Interviews stored
+ * before bots had names are assigned to the first bot before any bot polls.
+ */
+@Slf4j
+@Service
+@Profile("!replay")
+@RequiredArgsConstructor
+public class TelegramBotBootstrap {
+
+    private final TelegramBotsApi telegramBotsApi;
+    private final TelegramBotRegistry telegramBotRegistry;
+    private final TelegramBotsProperties telegramBotsProperties;
+    private final InterviewService interviewService;
+    private final Map<String, BotSession> botSessions = new ConcurrentHashMap<>();
+    private boolean stopped;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        telegramBotRegistry.getBots().forEach(TelegramBotService::initCommands);
+        Mono.fromRunnable(this::register)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, e -> log.error("Bots were not registered", e));
+    }
+
+    /**
+     * Stops polling; a registration still in progress does not start polling afterwards.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        botSessions.values().stream()
+                .filter(BotSession::isRunning)
+                .forEach(BotSession::stop);
+    }
+
+    public boolean isPolling(String bot) {
+        BotSession botSession = botSessions.get(bot);
+        return botSession != null && botSession.isRunning();
+    }
+
+    private synchronized void register() {
+        if (stopped) {
+            return;
+        }
+        interviewService.assignUnnamed(telegramBotsProperties.legacyBot());
+        for (TelegramBotService bot : telegramBotRegistry.getBots()) {
+            try {
+                botSessions.put(bot.getName(), telegramBotsApi.registerBot(bot));
+                log.info("Bot {} ({}) is polling for updates", bot.getName(), bot.getBotUsername());
+            } catch (TelegramApiException e) {
+                log.error("Registering bot {} failed", bot.getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ua.ai_interviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ua.ai_interviewer.service.impl.AsyncOpenAIServiceImpl;
+
+/**
+ * The collaborators every {@link TelegramBotService} shares, injected once and handed to
+ * each bot by {@link TelegramBotRegistry}. A collaborator a bot needs is added here only.
+ */
+@Getter
+@Component
+@RequiredArgsConstructor
+public class TelegramBotDependencies {
+
+    private final AsyncOpenAIServiceImpl asyncOpenAIService;
+    private final ObjectMapper objectMapper;
+    private final OpenAiService openAIService;
+    private final InterviewService interviewService;
+    private final ChatSettingsService chatSettingsService;
+    private final TranscriptionService transcriptionService;
+    private final AdmissionController admissionController;
+    private final FlightRecorderService flightRecorderService;
+    private final TrafficRecorder trafficRecorder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TraceSampler traceSampler;
+    private final DrainService drainService;
+    private final UsageService usageService;
+    private final UpstreamGovernor upstreamGovernor;
+    private final DegradationController degradationController;
+    private final ResponseCache responseCache;
+    private final VoiceCoalescer voiceCoalescer;
+    private final AudioBufferManager audioBufferManager;
+    private final TurnRegistry turnRegistry;
+}
@@ -0,0 +1,72 @@
+package ua.ai_interviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import ua.ai_interviewer.config.TelegramBotsProperties;
+import ua.ai_interviewer.dto.admin.BotStatus;
+import ua.ai_interviewer.dto.telegram.BotDefinition;
+import ua.ai_interviewer.service.impl.TelegramApiClientImpl;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import static ua.ai_interviewer.enums.UpstreamLane.CHAT;
+import static ua.ai_interviewer.enums.UpstreamLane.LOCAL_TRANSCRIPTION;
+import static ua.ai_interviewer.enums.UpstreamLane.TRANSCRIPTION;
+
+/**
+ * Creates a {@link TelegramBotService} for every bot of {@code telegram.bots}. Each bot has its
+ * own token and Telegram client; the web client, executors, ffmpeg, caches and upstream
+ * governor are shared by all of them.
+ */
+@Slf4j
+@Service
+public class TelegramBotRegistry {
+
+    private final Map<String, TelegramBotService> bots = new LinkedHashMap<>();
+    private final UpstreamGovernor upstreamGovernor;
+
+    public TelegramBotRegistry(TelegramBotsProperties telegramBotsProperties,
+                               WebClient webClient,
+                               ObjectMapper objectMapper,
+                               TelegramBotDependencies dependencies,
+                               @Value("${telegram.api.uri:https://api.telegram.org}") String apiUri) {
+        this.upstreamGovernor = dependencies.getUpstreamGovernor();
+        for (BotDefinition definition : telegramBotsProperties.definitions()) {
+            if (definition.token() == null || definition.token().isBlank()) {
+                throw new IllegalStateException("Bot " + definition.name() + " has no token");
+            }
+            if (bots.containsKey(definition.name())) {
+                throw new IllegalStateException("Bot name " + definition.name() + " is used twice");
+            }
+            TelegramApiClient telegramApiClient =
+                    new TelegramApiClientImpl(webClient, objectMapper, apiUri, definition.token());
+            bots.put(definition.name(), new TelegramBotService(definition, telegramApiClient, dependencies));
+        }
+        log.info("Serving bots {}", bots.keySet());
+    }
+
+    public Collection<TelegramBotService> getBots() {
+        return Collections.unmodifiableCollection(bots.values());
+    }
+
+    public Optional<TelegramBotService> find(String name) {
+        return Optional.ofNullable(bots.get(name));
+    }
+
+    /**
+     * @param polling Tells whether the bot of the given name is polling for updates.
+     */
+    public List<BotStatus> getStatus(Predicate<String> polling) {
+        return bots.values().stream()
+                .map(bot -> new BotStatus(bot.getName(), bot.getBotUsername(), polling.test(bot.getName()),
+                        bot.getUpdates(), bot.getRefused(), bot.getActiveChats(), bot.getTurns(), bot.getFailedTurns(),
+                        upstreamGovernor.getQueued(TRANSCRIPTION, bot.getName())
+                                + upstreamGovernor.getQueued(LOCAL_TRANSCRIPTION, bot.getName()),
+                        upstreamGovernor.getQueued(CHAT, bot.getName())))
+                .toList();
+    }
+}
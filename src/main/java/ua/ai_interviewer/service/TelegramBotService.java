@@ -3,42 +3,41 @@ package ua.ai_interviewer.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.codec.ServerSentEvent;
-import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.BodyExtractors;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
-import org.telegram.telegrambots.meta.api.methods.GetFile;
 import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
-import org.telegram.telegrambots.meta.api.methods.send.SendVoice;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
-import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.Voice;
 import org.telegram.telegrambots.meta.api.objects.commands.BotCommand;
 import org.telegram.telegrambots.meta.api.objects.commands.scope.BotCommandScopeDefault;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import ua.ai_interviewer.converter.AudioConverter;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+import ua.ai_interviewer.dto.chatgpt.CachedResponse;
 import ua.ai_interviewer.dto.chatgpt.ChatMessage;
 import ua.ai_interviewer.dto.chatgpt.StreamResponse;
+import ua.ai_interviewer.dto.telegram.BotDefinition;
+import ua.ai_interviewer.dto.telegram.TurnCompletedEvent;
+import ua.ai_interviewer.dto.telegram.TurnProgress;
 import ua.ai_interviewer.dto.telegram.UpdateContent;
 import ua.ai_interviewer.enums.Language;
 import ua.ai_interviewer.enums.Role;
 import ua.ai_interviewer.exception.*;
+import ua.ai_interviewer.model.ChatSettings;
 import ua.ai_interviewer.model.Interview;
-import ua.ai_interviewer.service.impl.AsyncOpenAIServiceImpl;
 import ua.ai_interviewer.util.GoogleUtil;
+import ua.ai_interviewer.util.LogRedactor;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -49,82 +48,149 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static ua.ai_interviewer.enums.Language.*;
+import static ua.ai_interviewer.enums.UpstreamLane.CHAT;
+import static ua.ai_interviewer.util.FlightRecorderUtil.recordStage;
+import static ua.ai_interviewer.util.FlightRecorderUtil.utf8Size;
 import static ua.ai_interviewer.util.WebClientUtil.retryAfterTooManyRequests;
 import static ua.ai_interviewer.util.WebClientUtil.retryWhenSendEmptyMessage;
 
+/**
+ * One bot of {@code telegram.bots}, created by {@link TelegramBotRegistry}. Interviews and
+ * settings are kept per bot; the services behind it are shared by all bots.
+ */
 @Slf4j
-@Service
 public class TelegramBotService extends TelegramLongPollingBot {
 
     private static final String UNEXPECTED_ERROR = "Unexpected error";
+    private final BotDefinition bot;
     private final AsyncOpenAIService asyncOpenAIService;
     private final ConcurrentHashMap<Long, Boolean> activeUsers = new ConcurrentHashMap<>();
+    // the last reply to each chat still being sent
+    private final ConcurrentHashMap<Long, Mono<Void>> replies = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper;
     private final InterviewService interviewService;
+    private final ChatSettingsService chatSettingsService;
     private final OpenAiService openAIService;
-    private AudioConverter audioConverter;
-    private final WebClient webClient;
-    private final String botToken;
-    @Value("${telegram.bot.username}")
-    private String botUsername;
-
-
-    @Autowired
-    public TelegramBotService(AsyncOpenAIServiceImpl asyncOpenAIService,
-                              ObjectMapper objectMapper,
-                              WebClient webClient,
-                              OpenAiService openAIService,
-                              InterviewService interviewService,
-                              AudioConverter audioConverter,
-                              @Value("${telegram.bot.token}") String botToken) {
-        super(botToken);
-        this.asyncOpenAIService = asyncOpenAIService;
-        this.objectMapper = objectMapper;
-        this.webClient = webClient;
-        this.openAIService = openAIService;
-        this.interviewService = interviewService;
-        this.audioConverter = audioConverter;
-        this.botToken = botToken;
-    }
-
-    @PostConstruct
-    private void postConstruct() {
-        initCommands();
-    }
-
-
-    private void initCommands() {
+    private final TranscriptionService transcriptionService;
+    private final AdmissionController admissionController;
+    private final TelegramApiClient telegramApiClient;
+    private final FlightRecorderService flightRecorderService;
+    private final TrafficRecorder trafficRecorder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TraceSampler traceSampler;
+    private final DrainService drainService;
+    private final UsageService usageService;
+    private final UpstreamGovernor upstreamGovernor;
+    private final DegradationController degradationController;
+    private final ResponseCache responseCache;
+    private final VoiceCoalescer voiceCoalescer;
+    private final AudioBufferManager audioBufferManager;
+    private final TurnRegistry turnRegistry;
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private final AtomicLong turns = new AtomicLong();
+    private final AtomicLong failedTurns = new AtomicLong();
+
+    public TelegramBotService(BotDefinition bot, TelegramApiClient telegramApiClient,
+                              TelegramBotDependencies dependencies) {
+        super(bot.token());
+        this.bot = bot;
+        this.telegramApiClient = telegramApiClient;
+        this.asyncOpenAIService = dependencies.getAsyncOpenAIService();
+        this.objectMapper = dependencies.getObjectMapper();
+        this.openAIService = dependencies.getOpenAIService();
+        this.interviewService = dependencies.getInterviewService();
+        this.chatSettingsService = dependencies.getChatSettingsService();
+        this.transcriptionService = dependencies.getTranscriptionService();
+        this.admissionController = dependencies.getAdmissionController();
+        this.flightRecorderService = dependencies.getFlightRecorderService();
+        this.trafficRecorder = dependencies.getTrafficRecorder();
+        this.eventPublisher = dependencies.getEventPublisher();
+        this.traceSampler = dependencies.getTraceSampler();
+        this.drainService = dependencies.getDrainService();
+        this.usageService = dependencies.getUsageService();
+        this.upstreamGovernor = dependencies.getUpstreamGovernor();
+        this.degradationController = dependencies.getDegradationController();
+        this.responseCache = dependencies.getResponseCache();
+        this.voiceCoalescer = dependencies.getVoiceCoalescer();
+        this.audioBufferManager = dependencies.getAudioBufferManager();
+        this.turnRegistry = dependencies.getTurnRegistry();
+    }
+
+    public void initCommands() {
         List<BotCommand> listOfCommands = new ArrayList<>();
         listOfCommands.add(new BotCommand("/reset", "reset current conversation"));
         listOfCommands.add(new BotCommand("/language", "change current conversation language"));
         listOfCommands.add(new BotCommand("/speeching", "on/off speeching for bot responses"));
-        try {
-            this.execute(new SetMyCommands(listOfCommands, new BotCommandScopeDefault(), null));
-        } catch (TelegramApiException e) {
-            log.error("Error setting bot's command list " + e.getMessage());
-        }
+        telegramApiClient.execute(new SetMyCommands(listOfCommands, new BotCommandScopeDefault(), null))
+                .subscribe(
+                        result -> log.debug("Bot's command list has been set"),
+                        e -> log.error("Error setting bot's command list " + e.getMessage())
+                );
     }
 
     @Override
     public String getBotUsername() {
-        return botUsername;
+        return bot.username();
+    }
+
+    public String getName() {
+        return bot.name();
+    }
+
+    public long getUpdates() {
+        return updates.get();
+    }
+
+    public long getRefused() {
+        return refused.get();
+    }
+
+    public int getActiveChats() {
+        return activeUsers.size();
+    }
+
+    public long getTurns() {
+        return turns.get();
+    }
+
+    public long getFailedTurns() {
+        return failedTurns.get();
     }
 
     @Override
     public void onUpdateReceived(Update update) {
-        log.trace("Received new update");
+        log.trace("Received new update for bot {}", bot.name());
+        long started = System.nanoTime();
+        updates.incrementAndGet();
+        trafficRecorder.recordUpdate(update);
         UpdateContent updateContent = getUpdateContent(update);
-        CompletableFuture.runAsync(processUpdate(updateContent))
-                .exceptionally(ex -> {
+        if (!drainService.tryBegin()) {
+            refused.incrementAndGet();
+            log.info("Refused update for chat id {} while draining", updateContent.chatId());
+            reply(updateContent.chatId(), "Bot is restarting, send your message again in a minute");
+            return;
+        }
+        processUpdate(updateContent)
+                .doFinally(signal -> {
+                    drainService.end();
+                    eventPublisher.publishEvent(new TurnCompletedEvent(update.getUpdateId(),
+                            updateContent.chatId(), System.nanoTime() - started, signal == SignalType.ON_ERROR));
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, ex -> {
+                    if (ex instanceof TurnCancelledException) {
+                        return;
+                    }
                     Long chatId = updateContent.chatId();
                     log.error("{} for chat id {}", UNEXPECTED_ERROR, chatId, ex);
-                    sendMessage(chatId, UNEXPECTED_ERROR);
-                    return null;
+                    reply(chatId, UNEXPECTED_ERROR);
                 });
     }
 
@@ -140,167 +206,342 @@ public class TelegramBotService extends TelegramLongPollingBot {
         throw new UnsupportedOperationException();
     }
 
-    private Runnable processUpdate(UpdateContent updateContent) {
-        return () -> {
+    private Mono<Void> processUpdate(UpdateContent updateContent) {
+        return Mono.defer(() -> {
             final String alreadyProcessing = """
                     Still processing your previously message.
                     You can forward it when it has been done""";
             Long chatId = updateContent.chatId();
-            if (activeUsers.containsKey(chatId)) {
+            // a note joining an open batch is held to the quota like the note that opened it
+            if (updateContent.apiObject() instanceof Message message && message.hasVoice()
+                    && (refuseOverQuota(message) || voiceCoalescer.join(bot.name(), message))) {
+                return Mono.empty();
+            }
+            supersededTurn(updateContent.apiObject())
+                    .ifPresent(reason -> turnRegistry.cancel(bot.name(), chatId, reason));
+            if (activeUsers.putIfAbsent(chatId, true) != null) {
+                refused.incrementAndGet();
                 log.info("Message from user {} is already being processed", chatId);
-                sendMessage(chatId, alreadyProcessing);
-            } else {
-                activeUsers.put(chatId, true);
-                try {
-                    switch (updateContent.apiObject()) {
-                        case Message m -> processMessage(m);
-                        case CallbackQuery cq -> processCallback(cq);
-                        default -> throw new IllegalStateException("Unexpected value: " + updateContent.apiObject());
-                    }
-                } finally {
-                    activeUsers.remove(chatId);
-                }
+                reply(chatId, alreadyProcessing);
+                return Mono.empty();
             }
+            // the chat is released when the turn completes, fails or is cancelled
+            TurnRegistry.Turn turn = turnRegistry.open(bot.name(), chatId);
+            CancellationToken token = turn.token();
+            return Mono.defer(() -> switch (updateContent.apiObject()) {
+                        case Message m -> processMessage(m, token);
+                        case CallbackQuery cq -> processCallback(cq);
+                        default -> Mono.<Void>error(
+                                new IllegalStateException("Unexpected value: " + updateContent.apiObject()));
+                    })
+                    .takeUntilOther(token.cancelled())
+                    .contextWrite(Context.of(TurnProgress.class, turn.progress()))
+                    .doFinally(signal -> {
+                        turnRegistry.close(bot.name(), chatId, turn);
+                        activeUsers.remove(chatId);
+                    });
+        });
+    }
+
+    /**
+     * A reset or a change of language makes the reply in flight useless, so it is cancelled
+     * rather than the command refused. Opening the language picker with /language changes
+     * nothing yet; only picking a language, the one callback there is, cancels the turn.
+     */
+    private static Optional<String> supersededTurn(Object apiObject) {
+        return switch (apiObject) {
+            case Message m when m.hasText() && m.getText().equals("/reset") -> Optional.of(m.getText());
+            case CallbackQuery cq -> Optional.of("language change");
+            default -> Optional.empty();
         };
     }
 
-    private void processCallback(CallbackQuery callbackQuery) {
+    private Mono<Void> processCallback(CallbackQuery callbackQuery) {
         Long chatId = callbackQuery.getMessage().getChatId();
         String data = callbackQuery.getData();
         log.debug("Received callback for chat id '{}', date: {}", chatId, data);
 
-        Interview interview = interviewService.getActiveIfExistOrCreateByChatId(chatId);
         Language language = valueOf(data);
-        interview.setLanguage(language);
+        chatSettingsService.setLanguage(bot.name(), chatId, language);
 
-        interviewService.update(interview);
-        sendMessage(chatId, "Language has been changed");
+        return sendMessage(chatId, "Language has been changed", null).then();
     }
 
-    private void processMessage(Message message) {
+    private Mono<Void> processMessage(Message message, CancellationToken token) {
         if (message.hasText()) {
             processText(message);
         } else if (message.hasVoice()) {
-            processVoiceAndGetAnswerFromChatAsync(message);
+            return admitVoice(message, token);
         } else {
-            sendMessage(message.getChatId(), "Unsupported action", message.getMessageId());
+            reply(message.getChatId(), "Unsupported action", message.getMessageId());
         }
+        return Mono.empty();
     }
 
-    private void processVoiceAndGetAnswerFromChatAsync(Message message) {
-        Long chatId = message.getChatId();
-        sendMessage(chatId, "Processing your voice. Wait.");
-        File mp3 = null;
+    private boolean refuseOverQuota(Message message) {
+        if (!usageService.isOverDailyQuota(message.getChatId())) {
+            return false;
+        }
+        refused.incrementAndGet();
+        log.info("Chat id {} is over its daily quota", message.getChatId());
+        reply(message.getChatId(), "You have reached today's usage limit, it resets at 00:00 UTC",
+                message.getMessageId());
+        return true;
+    }
 
-        try {
-            Interview interview = interviewService.getActiveIfExistOrCreateByChatId(chatId);
-            mp3 = processVoice(message)
-                    .orElseThrow(FileNotFoundException::new);
-            String transcribed = openAIService.transcribe(mp3, interview.getLanguage().getIso()).text();
-            interview.addMessage(openAIService.createMessage(transcribed));
-            List<ChatMessage> conversation = interview.getConversation();
-
-            if (interview.isSpeeching()) {
-                sendConversationToGptAndSpeechResponseToUser(chatId, message.getMessageId(), interview, conversation);
-            } else {
-                sendConversationToChatGptAndResponseToUser(chatId, message.getMessageId(), interview, conversation);
-            }
-        } catch (Exception e) {
-            handleError(e, chatId, message.getMessageId());
-        } finally {
-            safeDeleteFile(mp3);
+    /**
+     * The quota has been checked by {@link #processUpdate}.
+     */
+    private Mono<Void> admitVoice(Message message, CancellationToken token) {
+        if (!admissionController.tryAdmit()) {
+            refused.incrementAndGet();
+            reply(message.getChatId(),
+                    "Bot is busy right now, try again in %d seconds".formatted(admissionController.getRetryAfterSeconds()),
+                    message.getMessageId());
+            return Mono.empty();
         }
+        long started = System.nanoTime();
+        turns.incrementAndGet();
+        Flux<Message> notes = voiceCoalescer.open(bot.name(), message);
+        return flightRecorderService.recordTurn(bot.name(), message.getChatId(), event ->
+                        processVoiceAndGetAnswerFromChatAsync(message, notes.doOnNext(note -> {
+                            Voice voice = note.getVoice();
+                            event.addVoice(voice.getDuration(), voice.getFileSize() == null ? 0 : voice.getFileSize());
+                        }), token))
+                .doOnError(e -> failedTurns.incrementAndGet())
+                .doFinally(signal -> admissionController.complete(started));
     }
 
-    private void sendConversationToGptAndSpeechResponseToUser(
-            Long chatId,
-            Integer messageId,
-            Interview interview,
-            List<ChatMessage> conversation) throws IOException {
-        var response = openAIService.getResponseFromGpt(conversation)
-                .getChoices()
-                .stream()
-                .map(choices -> choices.getMessage().getContent())
-                .collect(Collectors.joining());
-        Language language = interview.getLanguage();
-        File voice = GoogleUtil.textToFile(response, language);
-        sendVoice(chatId, messageId, voice);
-
-        interview.addMessage(
-                ChatMessage.builder()
-                        .content(response)
-                        .role(Role.ASSISTANT.value)
-                        .build()
-        );
-        interviewService.update(interview);
-    }
-
-    private void sendVoice(Long chatId, Integer messageId, File voice) {
-        SendVoice sendVoice = new SendVoice();
-        sendVoice.setChatId(chatId);
-        sendVoice.setReplyToMessageId(messageId);
-        InputFile inputFile = new InputFile(voice);
-        sendVoice.setVoice(inputFile);
+    /**
+     * Answers the voice notes of the batch opened by the message as one user message,
+     * transcribing each note as soon as it arrives.
+     */
+    private Mono<Void> processVoiceAndGetAnswerFromChatAsync(Message message, Flux<Message> notes,
+                                                             CancellationToken token) {
+        Long chatId = message.getChatId();
+        ChatSettings settings = chatSettingsService.get(bot.name(), chatId);
+        AtomicReference<Integer> replyTo = new AtomicReference<>(message.getMessageId());
 
-        try {
-            execute(sendVoice);
-        } catch (TelegramApiException e) {
-            log.error("Error while sending voice to user chat id '{}'", chatId, e);
-        } finally {
-            safeDeleteFile(voice);
-        }
+        Mono<Integer> acknowledge = sendMessage(chatId, "Processing your voice. Wait.", null)
+                .onErrorResume(e -> {
+                    log.warn("Could not acknowledge voice for chat id {}", chatId, e);
+                    return Mono.just(-1);
+                });
+        Mono<Interview> loadInterview = recordStage("interview.load", chatId, event ->
+                Mono.fromCallable(() -> interviewService.getActiveIfExistOrCreateByChatId(bot.name(), chatId)));
+        Mono<String> transcribe = notes
+                .doOnNext(note -> replyTo.set(note.getMessageId()))
+                .flatMapSequential(note -> transcribeVoice(note, settings.getLanguage(), token))
+                .filter(transcribed -> !transcribed.isBlank())
+                .collect(Collectors.joining("\n"))
+                .filter(transcribed -> !transcribed.isBlank())
+                .switchIfEmpty(Mono.error(() -> new NoSpeechDetectedException("No speech detected in voice notes")));
+
+        return Mono.zip(
+                        acknowledge,
+                        loadInterview.subscribeOn(Schedulers.boundedElastic()),
+                        transcribe
+                )
+                .map(stages -> {
+                    Interview interview = stages.getT2();
+                    interview.addMessage(openAIService.createMessage(stages.getT3()));
+                    return interview;
+                })
+                .flatMap(interview -> settings.isSpeeching() && degradationController.isVoiceReplyAllowed()
+                        ? sendConversationToGptAndSpeechResponseToUser(chatId, replyTo.get(), interview,
+                                settings.getLanguage(), token)
+                        : sendConversationToChatGptAndResponseToUser(chatId, replyTo.get(), interview,
+                                settings.getLanguage(), token))
+                .onErrorResume(e -> handleError(e, chatId, replyTo.get()));
     }
 
-    private void sendConversationToChatGptAndResponseToUser(
+    /**
+     * A note without speech is left out of the batch rather than failing it.
+     */
+    private Mono<String> transcribeVoice(Message note, Language language, CancellationToken token) {
+        Long chatId = note.getChatId();
+        Voice voice = note.getVoice();
+        AtomicReference<File> ogg = new AtomicReference<>();
+        return recordStage("telegram.download", chatId, event -> downloadVoice(voice)
+                .doOnNext(file -> event.addResponseBytes(file.length())))
+                .doOnNext(ogg::set)
+                .flatMap(file -> recordStage("transcription", chatId, event -> {
+                    event.addRequestBytes(file.length());
+                    return transcriptionService.transcribe(
+                                    bot.name(), chatId, file, voice.getFileUniqueId(), voice.getDuration(), language, token)
+                            .doOnNext(transcribed -> {
+                                event.addResponseBytes(utf8Size(transcribed));
+                                usageService.recordAudio(chatId, voice.getDuration());
+                            });
+                }))
+                .onErrorResume(NoSpeechDetectedException.class, e -> {
+                    log.info("No speech in voice note {} of chat id {}", note.getMessageId(), chatId);
+                    return Mono.just("");
+                })
+                .doFinally(signal -> safeDeleteFile(ogg.getAndSet(null)));
+    }
+
+    private Mono<Void> sendConversationToGptAndSpeechResponseToUser(
             Long chatId,
-            Integer responseToMessageId,
+            Integer messageId,
             Interview interview,
-            List<ChatMessage> conversation) {
-        StringBuilder response = new StringBuilder();
-        int messageId = sendMessage(chatId, "...", responseToMessageId);
-
-        Mono<Void> chatResponseHandler = asyncOpenAIService.getResponseFromChatGpt(conversation)
-                .timeout(Duration.ofSeconds(100),
-                        Flux.error(new OpenAIRequestException("Reached timeout of request")))
-                .doOnNext(event -> {
-                    log.trace("{}", event.data());
-                    if (event.data() == null || event.data().equals("[DONE]")) {
-                        return;
+            Language language,
+            CancellationToken token) {
+        Optional<ResponseCache.Key> cacheKey = responseCache.keyFor(interview, language, degradationController.getChatModel());
+        Optional<CachedResponse> cached = cacheKey.flatMap(responseCache::get);
+        Mono<String> reply = cached.isPresent()
+                ? Mono.just(cached.get().text())
+                : recordStage("chat.reply", chatId, event -> upstreamGovernor.withPermit(CHAT, bot.name(), chatId,
+                        estimatePromptTokens(interview), usageService.getWeight(chatId),
+                        Mono.deferContextual(context -> Mono.fromCallable(
+                                        () -> openAIService.getResponseFromGpt(interview, token, context)))
+                                .subscribeOn(Schedulers.boundedElastic())))
+                .map(gptResponse -> {
+                    if (gptResponse.getUsage() != null) {
+                        usageService.recordTokens(chatId, gptResponse.getUsage());
                     }
-                    StreamResponse streamResponse = handleEvent(event);
-                    String content = streamResponse.choices()
+                    return gptResponse.getChoices()
                             .stream()
-                            .map(choice -> choice.delta().content())
-                            .filter(Objects::nonNull)
+                            .map(choices -> choices.getMessage().getContent())
                             .collect(Collectors.joining());
-                    if (content.isEmpty()) {
-                        return;
-                    }
-                    response.append(content);
-                })
-                .retryWhen(retryAfterTooManyRequests())
-                .doOnError(error -> handleError(error, chatId, messageId))
-                .doOnComplete(() -> {
-                    sendEditMessage(chatId, response.toString(), messageId);
-                    log.debug("Stream completed");
-                    interview.addMessage(ChatMessage.builder()
-                            .role(Role.ASSISTANT.value)
-                            .content(response.toString())
-                            .build());
-                    interviewService.update(interview);
                 })
+                .doOnNext(response -> cacheKey.ifPresent(key -> responseCache.putText(key, response)));
+
+        return reply
+                .flatMap(response -> Mono.usingWhen(synthesize(chatId, response, language, cacheKey, token),
+                                voice -> sendVoice(chatId, messageId, voice),
+                                voice -> Mono.fromRunnable(voice::release))
+                        .then(saveAssistantMessage(chatId, interview, response, token)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    /**
+     * The cached voice of a cached reply, otherwise synthesized and cached when the reply may be.
+     * The caller releases the buffer once the voice has been sent.
+     */
+    private Mono<AudioBuffer> synthesize(Long chatId, String response, Language language,
+                                         Optional<ResponseCache.Key> cacheKey, CancellationToken token) {
+        return Mono.defer(() -> Mono.justOrEmpty(cacheKey.flatMap(key -> responseCache.getVoice(key, response))))
+                .switchIfEmpty(recordStage("tts", chatId, event -> {
+                    event.addRequestBytes(utf8Size(response));
+                    return audioBufferManager.wrap(audioBufferManager.estimateSpeechBytes(response),
+                                    token.bind(Mono.fromCallable(() -> GoogleUtil.textToSpeech(response, language))
+                                            .subscribeOn(Schedulers.boundedElastic())))
+                            .doOnNext(voice -> {
+                                event.addResponseBytes(voice.size());
+                                cacheKey.ifPresent(key -> responseCache.putVoice(key, response, voice));
+                            });
+                }));
+    }
+
+    /**
+     * Not saved once the turn has been cancelled, so a reset interview is not written back.
+     */
+    private Mono<Void> saveAssistantMessage(Long chatId, Interview interview, String response,
+                                            CancellationToken token) {
+        return recordStage("interview.save", chatId, event -> Mono.deferContextual(context -> Mono.<Void>fromRunnable(
+                () -> {
+                    token.throwIfCancelled();
+                    interview.addMessage(
+                            ChatMessage.builder()
+                                    .content(response)
+                                    .role(Role.ASSISTANT.value)
+                                    .build()
+                    );
+                    // the summary call must not hold off a cancellation waiting for the save
+                    interviewService.archiveOverflow(interview, context);
+                    token.runUnlessCancelled(() -> interviewService.update(interview));
+                })).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private Mono<Void> sendVoice(Long chatId, Integer messageId, AudioBuffer voice) {
+        return recordStage("telegram.send-voice", chatId, event -> {
+            event.addRequestBytes(voice.size());
+            return telegramApiClient.sendVoice(chatId, messageId, voice.content());
+        })
+                .doOnError(e -> log.error("Error while sending voice to user chat id '{}'", chatId, e))
+                .onErrorResume(e -> Mono.empty())
                 .then();
+    }
 
-        Flux<Long> intervalFlux = Flux.interval(Duration.ofSeconds(2))
-                .doOnNext(tick -> sendEditMessage(chatId, response.toString(), messageId))
-                .retryWhen(retryWhenSendEmptyMessage())
-                .doOnError(error -> log.error("Error occurred while send edited message", error));
+    private Mono<Void> sendConversationToChatGptAndResponseToUser(
+            Long chatId,
+            Integer responseToMessageId,
+            Interview interview,
+            Language language,
+            CancellationToken token) {
+        Optional<ResponseCache.Key> cacheKey = responseCache.keyFor(interview, language, degradationController.getChatModel());
+        Optional<CachedResponse> cached = cacheKey.flatMap(responseCache::get);
+        if (cached.isPresent()) {
+            String text = cached.get().text();
+            return sendMessage(chatId, text, responseToMessageId)
+                    .then(saveAssistantMessage(chatId, interview, text, token));
+        }
+        StringBuffer response = new StringBuffer();
+        AtomicReference<String> lastSent = new AtomicReference<>("...");
+
+        return sendMessage(chatId, "...", responseToMessageId).flatMap(messageId -> {
+            Mono<Void> chatResponseHandler = upstreamGovernor.withPermit(CHAT, bot.name(), chatId,
+                            estimatePromptTokens(interview), usageService.getWeight(chatId),
+                            asyncOpenAIService.getResponseFromChatGpt(interview, token))
+                    .timeout(Duration.ofSeconds(100),
+                            Flux.error(new OpenAIRequestException("Reached timeout of request")))
+                    .doOnNext(event -> {
+                        if (event.data() == null || event.data().equals("[DONE]")) {
+                            return;
+                        }
+                        StreamResponse streamResponse = handleEvent(event, chatId);
+                        if (streamResponse.usage() != null) {
+                            usageService.recordTokens(chatId, streamResponse.usage());
+                        }
+                        String content = streamResponse.choices()
+                                .stream()
+                                .map(choice -> choice.delta().content())
+                                .filter(Objects::nonNull)
+                                .collect(Collectors.joining());
+                        if (content.isEmpty()) {
+                            return;
+                        }
+                        response.append(content);
+                    })
+                    .retryWhen(retryAfterTooManyRequests())
+                    .then(Mono.defer(() -> sendEditMessageIfChanged(chatId, response.toString(), messageId, lastSent)))
+                    .then(Mono.defer(() -> {
+                        log.debug("Stream completed");
+                        cacheKey.ifPresent(key -> responseCache.putText(key, response.toString()));
+                        return saveAssistantMessage(chatId, interview, response.toString(), token);
+                    }))
+                    .onErrorResume(error -> handleError(error, chatId, messageId));
+
+            Flux<Serializable> intervalFlux = Flux.interval(Duration.ofSeconds(2))
+                    .concatMap(tick -> sendEditMessageIfChanged(chatId, response.toString(), messageId, lastSent))
+                    .retryWhen(retryWhenSendEmptyMessage())
+                    .onErrorResume(error -> {
+                        log.error("Error occurred while send edited message", error);
+                        return Flux.never();
+                    });
+
+            return intervalFlux.takeUntilOther(chatResponseHandler).then();
+        });
+    }
 
-        intervalFlux.takeUntilOther(chatResponseHandler)
-                .blockLast(); // block because of main thread deletes user from activeUsers
+    /**
+     * About four characters per token, enough to order chats by the size of their requests.
+     */
+    private static double estimatePromptTokens(Interview interview) {
+        long characters = 0;
+        for (ChatMessage chatMessage : interview.getContext()) {
+            characters += chatMessage.getContent() == null ? 0 : chatMessage.getContent().length();
+        }
+        return characters / 4.0;
     }
 
-    private void handleError(Throwable error, Long chatId, Integer messageId) {
+    private Mono<Void> handleError(Throwable error, Long chatId, Integer messageId) {
+        if (error instanceof TurnCancelledException) {
+            log.debug("Turn of chat id {} has been cancelled", chatId);
+            return Mono.empty();
+        }
         String chatResponse;
         switch (error) {
             case OpenAIRequestException e -> {
@@ -327,29 +568,43 @@ public class TelegramBotService extends TelegramLongPollingBot {
                 chatResponse = "Error occurred during file processing, you can try forward voice";
                 log.error("{}", chatResponse, e);
             }
+            case NoSpeechDetectedException e -> {
+                chatResponse = "I could not hear any speech in your voice message";
+                log.info("{} for chat id {}", chatResponse, chatId);
+            }
             default -> {
                 chatResponse = UNEXPECTED_ERROR;
                 log.error("{}", chatResponse, error);
             }
         }
-        sendMessage(chatId, chatResponse, messageId);
+        return sendMessage(chatId, chatResponse, messageId)
+                .onErrorResume(e -> Mono.empty())
+                .then();
     }
 
-    private void sendEditMessage(Long chatId, String response, int messageId) {
-        try {
-            EditMessageText editMessageText = new EditMessageText();
-            editMessageText.setChatId(chatId);
-            editMessageText.setMessageId(messageId);
-            editMessageText.setText(response);
-
-            execute(editMessageText);
-        } catch (TelegramApiException e) {
-            log.error(
-                    "Error during send edit message chat id {}, message id {}",
-                    chatId, messageId, e
-            );
-            throw new MessageSendingException("Failed to send message to chatId: " + chatId, e);
+    private Mono<Serializable> sendEditMessageIfChanged(Long chatId, String response, int messageId,
+                                                        AtomicReference<String> lastSent) {
+        if (response.isEmpty() || response.equals(lastSent.get())) {
+            return Mono.empty();
         }
+        return sendEditMessage(chatId, response, messageId)
+                .doOnNext(result -> lastSent.set(response));
+    }
+
+    private Mono<Serializable> sendEditMessage(Long chatId, String response, int messageId) {
+        EditMessageText editMessageText = new EditMessageText();
+        editMessageText.setChatId(chatId);
+        editMessageText.setMessageId(messageId);
+        editMessageText.setText(response);
+
+        return telegramApiClient.execute(editMessageText)
+                .onErrorMap(e -> {
+                    log.error(
+                            "Error during send edit message chat id {}, message id {}",
+                            chatId, messageId, e
+                    );
+                    return new MessageSendingException("Failed to send message to chatId: " + chatId, e);
+                });
     }
 
 
@@ -362,69 +617,34 @@ public class TelegramBotService extends TelegramLongPollingBot {
         }
     }
 
-    private Optional<File> processVoice(Message message) throws UncheckedIOException {
-        String fileId = message.getVoice().getFileId();
-
-        try {
-            GetFile getFile = new GetFile();
-            getFile.setFileId(fileId);
-            org.telegram.telegrambots.meta.api.objects.File voice = execute(getFile);
-            String filePath = voice.getFilePath();
-            String fileUniqueId = voice.getFileUniqueId();
-            String fileUrl = voice.getFileUrl(botToken);
-            log.debug("File path {}. File id {} . File unique id {}", filePath, voice.getFileId(), fileUniqueId);
-            File ogg = saveVoice(fileUrl, fileUniqueId);
-            Optional<File> fileOptional = Optional.of(audioConverter.convertToMp3(ogg, fileUniqueId));
-            safeDeleteFile(ogg);
-
-            return fileOptional;
-        } catch (TelegramApiException e) {
-            log.error("An error has occurred while execute the voice", e);
-        }
-        return Optional.empty();
-    }
-
-    private File saveVoice(String fileUrl, String name) throws UncheckedIOException {
-        String voicePath = String.format("%s%s", name, fileUrl.substring(fileUrl.lastIndexOf('.')));
-        Path outputPath = Paths.get(voicePath);
-
-        webClient.get()
-                .uri(fileUrl)
-                .exchangeToFlux(response -> response.body(BodyExtractors.toDataBuffers()))
-                .doOnError(e -> log.error("Error during voice save", e))
-                .doOnNext(dataBuffer -> {
-                    byte[] bytes = new byte[dataBuffer.readableByteCount()];
-                    dataBuffer.read(bytes);
-                    DataBufferUtils.release(dataBuffer);
-
-                    try (FileOutputStream out = new FileOutputStream(outputPath.toFile(), true)) {
-                        out.write(bytes);
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                })
-                .blockLast();
-
-        return outputPath.toFile();
+    private Mono<File> downloadVoice(Voice voiceMessage) {
+        return telegramApiClient.getFile(voiceMessage.getFileId())
+                .flatMap(voice -> {
+                    String filePath = voice.getFilePath();
+                    String fileUniqueId = voice.getFileUniqueId();
+                    log.debug("File path {}. File id {} . File unique id {}", filePath, voice.getFileId(), fileUniqueId);
+                    Path outputPath = Paths.get(fileUniqueId + filePath.substring(filePath.lastIndexOf('.')));
+
+                    return DataBufferUtils.write(telegramApiClient.downloadFile(filePath), outputPath)
+                            .doOnError(e -> log.error("Error during voice save", e))
+                            .thenReturn(outputPath.toFile());
+                });
     }
 
     private void processText(Message message) {
         Long chatId = message.getChatId();
         String inputText = message.getText();
-        log.debug("chat id '{}', message: {}", chatId, inputText);
+        log.debug("chat id '{}', message: {}", chatId, LogRedactor.redact(inputText));
         switch (inputText) {
             case "/reset" -> resetConversation(chatId, message.getMessageId());
             case "/language" -> setConversationLanguage(chatId, message.getMessageId());
             case "/speeching" -> changeSpeechingValue(chatId, message.getMessageId());
-            default -> sendMessage(chatId, "wrong command");
+            default -> reply(chatId, "wrong command");
         }
     }
 
     private void changeSpeechingValue(Long chatId, Integer messageId) {
-        Interview interview = interviewService.getActiveIfExistOrCreateByChatId(chatId);
-        boolean speeching = !interview.isSpeeching();
-        interview.setSpeeching(speeching);
-        interviewService.update(interview);
+        boolean speeching = chatSettingsService.toggleSpeeching(bot.name(), chatId).isSpeeching();
 
         log.debug("Speeching has been change to {}, for chat id {}", speeching, chatId);
 
@@ -432,7 +652,7 @@ public class TelegramBotService extends TelegramLongPollingBot {
                 ? "Speeching has been enabled. Now you will receive voice responses"
                 : "Speeching has been disabled. Now you will receive text responses";
 
-        sendMessage(chatId, message, messageId);
+        reply(chatId, message, messageId);
     }
 
     public void setConversationLanguage(Long chatId, int messageId) {
@@ -461,29 +681,34 @@ public class TelegramBotService extends TelegramLongPollingBot {
 
         inlineKeyboardMarkup.setKeyboard(rowList);
 
-        sendMessage(chatId, "Please select your language", messageId, inlineKeyboardMarkup);
+        enqueue(chatId, sendMessage(chatId, "Please select your language", messageId, inlineKeyboardMarkup));
     }
 
+    /**
+     * Settings still kept in the interview by older versions are migrated before it is
+     * saved, as saving it drops them.
+     */
     private void resetConversation(Long chatId, Integer messageId) {
-        interviewService.getActiveByChatId(chatId)
+        chatSettingsService.get(bot.name(), chatId);
+        interviewService.getActiveByChatId(bot.name(), chatId)
                 .ifPresentOrElse(
                         interview -> {
                             interview.setActive(false);
                             interviewService.update(interview);
                             String message = "Conversation has been reset successful";
                             log.debug("{} for chat id {}", message, chatId);
-                            interviewService.create(chatId, interview.getLanguage(), interview.isSpeeching());
-                            sendMessage(chatId, message, messageId);
+                            interviewService.create(bot.name(), chatId);
+                            reply(chatId, message, messageId);
                         },
-                        () -> sendMessage(chatId, "You do not have active conversation", messageId)
+                        () -> reply(chatId, "You do not have active conversation", messageId)
                 );
     }
 
-    private int sendMessage(long chatId, String messageText, Integer replyToMessageId) {
+    private Mono<Integer> sendMessage(long chatId, String messageText, Integer replyToMessageId) {
         return sendMessage(chatId, messageText, replyToMessageId, null);
     }
 
-    private int sendMessage(long chatId, String messageText, Integer replyToMessageId, InlineKeyboardMarkup inlineKeyboard) {
+    private Mono<Integer> sendMessage(long chatId, String messageText, Integer replyToMessageId, InlineKeyboardMarkup inlineKeyboard) {
         SendMessage message = new SendMessage();
         message.setChatId(chatId);
         message.setText(messageText);
@@ -495,29 +720,55 @@ public class TelegramBotService extends TelegramLongPollingBot {
             message.setReplyMarkup(inlineKeyboard);
         }
 
-        try {
-            return execute(message).getMessageId();
-        } catch (TelegramApiException e) {
-            log.error(
-                    "Error while sending message: '{}', user chat id '{}'",
-                    messageText, chatId, e
-            );
-            throw new MessageSendingException("Failed to send message to chatId: " + chatId, e);
-        }
+        return telegramApiClient.execute(message)
+                .map(Message::getMessageId)
+                .onErrorMap(e -> {
+                    log.error(
+                            "Error while sending message: '{}', user chat id '{}'",
+                            LogRedactor.redact(messageText), chatId, e
+                    );
+                    return new MessageSendingException("Failed to send message to chatId: " + chatId, e);
+                });
+    }
+
+    private void reply(long chatId, String messageText, Integer replyToMessageId) {
+        enqueue(chatId, sendMessage(chatId, messageText, replyToMessageId));
     }
 
-    private void sendMessage(long chatId, String messageText) {
-        sendMessage(chatId, messageText, null);
+    /**
+     * Sends the message after the replies to the chat made before it, so they arrive in the
+     * order they were made. A failed reply is logged and does not hold up the next ones.
+     */
+    private void enqueue(long chatId, Mono<Integer> message) {
+        Mono<Void> sent = replies.compute(chatId, (id, previous) -> (previous == null ? Mono.<Void>empty() : previous)
+                .then(message)
+                .doOnNext(messageId -> log.trace("Message {} sent to chat id {}", messageId, chatId))
+                .onErrorResume(e -> {
+                    // sendMessage has logged its own failures
+                    if (!(e instanceof MessageSendingException)) {
+                        log.error("Error while replying to chat id {}", chatId, e);
+                    }
+                    return Mono.empty();
+                })
+                .then()
+                .cache());
+        sent.doFinally(signal -> replies.remove(chatId, sent)).subscribe();
     }
 
-    private StreamResponse handleEvent(ServerSentEvent<String> event) {
+    private void reply(long chatId, String messageText) {
+        reply(chatId, messageText, null);
+    }
+
+    private StreamResponse handleEvent(ServerSentEvent<String> event, Long chatId) {
         String data = event.data();
         try {
-            log.trace("Received event: {}", data);
+            if (log.isTraceEnabled() && traceSampler.isSampled(chatId)) {
+                log.trace("Received event for chat id {}: {}", chatId, LogRedactor.redact(data));
+            }
             return objectMapper.readValue(data, StreamResponse.class);
         } catch (JsonProcessingException e) {
             log.error("Error processing JSON: " + e.getMessage());
-            throw new EventHandlingException("Failed to handle event: " + data);
+            throw new EventHandlingException("Failed to handle event: " + LogRedactor.redact(data));
         }
     }
 
@@ -0,0 +1,33 @@
+package ua.ai_interviewer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+
+/**
+ * Decides per chat whether trace-level logging of streamed responses is written.
+ * The decision is stable for a chat, so a sampled conversation is traced as a whole.
+ */
+@Service
+public class TraceSampler {
+
+    private static final int BUCKETS = 10_000;
+
+    private final int sampledBuckets;
+    private final Set<Long> chatIds;
+
+    public TraceSampler(@Value("${logging.trace-sampling.rate:0.01}") double rate,
+                        @Value("${logging.trace-sampling.chat-ids:}") Set<Long> chatIds) {
+        this.sampledBuckets = (int) Math.round(Math.max(0, Math.min(1, rate)) * BUCKETS);
+        this.chatIds = Set.copyOf(chatIds);
+    }
+
+    public boolean isSampled(long chatId) {
+        if (chatIds.contains(chatId)) {
+            return true;
+        }
+        long mixed = chatId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod(mixed ^ (mixed >>> 32), BUCKETS) < sampledBuckets;
+    }
+}
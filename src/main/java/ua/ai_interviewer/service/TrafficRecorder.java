@@ -0,0 +1,148 @@
+package ua.ai_interviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import ua.ai_interviewer.dto.traffic.TrafficRecord;
+import ua.ai_interviewer.jfr.StageEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the timing of incoming updates and of the upstream stages they cause to a
+ * gzipped recording that {@link ReplayDriver} can replay. Upstream stages are taken
+ * from the {@link StageEvent} flight recorder events. Chat ids are renumbered and only
+ * payload sizes, voice durations and known commands are kept.
+ */
+@Slf4j
+@Service
+public class TrafficRecorder {
+
+    private static final Set<String> KNOWN_COMMANDS = Set.of("/reset", "/language", "/speeching",
+            "ENGLISH", "UKRAINIAN", "RUSSIAN");
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+            .withZone(ZoneOffset.UTC);
+
+    private final Map<Long, Integer> chats = new ConcurrentHashMap<>();
+    private final AtomicInteger nextChat = new AtomicInteger(1);
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private long startedMillis;
+    private OutputStream out;
+    private RecordingStream stages;
+
+    public TrafficRecorder(ObjectMapper objectMapper,
+                           @Value("${traffic.recording.enabled:false}") boolean enabled,
+                           @Value("${traffic.recording.directory:traffic}") String directory) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+    }
+
+    @PostConstruct
+    private void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path file = directory.resolve("traffic-%s.jsonl.gz".formatted(FILE_TIME.format(Instant.now())));
+        startedMillis = System.currentTimeMillis();
+        out = new GZIPOutputStream(Files.newOutputStream(file), true);
+
+        String stageEvent = StageEvent.class.getAnnotation(jdk.jfr.Name.class).value();
+        stages = new RecordingStream();
+        stages.enable(stageEvent);
+        stages.onEvent(stageEvent, this::recordStage);
+        stages.startAsync();
+        log.info("Recording traffic to {}", file.toAbsolutePath());
+    }
+
+    @PreDestroy
+    private void stop() throws IOException {
+        if (stages != null) {
+            stages.close();
+        }
+        synchronized (this) {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        }
+    }
+
+    public void recordUpdate(Update update) {
+        if (!enabled) {
+            return;
+        }
+        long at = System.currentTimeMillis() - startedMillis;
+        if (update.hasCallbackQuery()) {
+            String data = update.getCallbackQuery().getData();
+            write(TrafficRecord.update(at, anonymise(update.getCallbackQuery().getMessage().getChatId()), "callback",
+                    known(data), 0, 0));
+        } else if (update.hasMessage()) {
+            Message message = update.getMessage();
+            int chat = anonymise(message.getChatId());
+            if (message.hasVoice()) {
+                Long size = message.getVoice().getFileSize();
+                write(TrafficRecord.update(at, chat, "voice", null, message.getVoice().getDuration(),
+                        size == null ? 0 : size));
+            } else if (message.hasText()) {
+                write(TrafficRecord.update(at, chat, "text", known(message.getText()), 0,
+                        message.getText().length()));
+            }
+        }
+    }
+
+    private void recordStage(RecordedEvent event) {
+        long chatId = event.getLong("chatId");
+        write(TrafficRecord.stage(
+                event.getStartTime().toEpochMilli() - startedMillis,
+                chatId == 0 ? 0 : anonymise(chatId),
+                event.getString("stage"),
+                event.getDuration().toMillis(),
+                event.getLong("requestBytes"),
+                event.getLong("responseBytes")));
+    }
+
+    private int anonymise(Long chatId) {
+        return chats.computeIfAbsent(chatId, id -> nextChat.getAndIncrement());
+    }
+
+    private String known(String value) {
+        return value != null && KNOWN_COMMANDS.contains(value) ? value : null;
+    }
+
+    private void write(TrafficRecord trafficRecord) {
+        try {
+            byte[] line = (objectMapper.writeValueAsString(trafficRecord) + "\n").getBytes(StandardCharsets.UTF_8);
+            synchronized (this) {
+                if (out != null) {
+                    out.write(line);
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not write traffic record", e);
+        }
+    }
+}
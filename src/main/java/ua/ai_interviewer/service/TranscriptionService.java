@@ -0,0 +1,19 @@
+package ua.ai_interviewer.service;
+
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.exception.OpenAIRequestException;
+import ua.ai_interviewer.exception.TooManyRequestsException;
+
+import java.io.File;
+
+public interface TranscriptionService {
+
+    /**
+     * Fails with {@link OpenAIRequestException} or {@link TooManyRequestsException} when the upstream does.
+     *
+     * @param token Cancels the conversion and the upstream call when the turn is superseded.
+     */
+    Mono<String> transcribe(String bot, Long chatId, File voice, String name, int durationSeconds, Language language,
+                            CancellationToken token);
+}
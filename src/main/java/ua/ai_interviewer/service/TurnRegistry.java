@@ -0,0 +1,80 @@
+package ua.ai_interviewer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ua.ai_interviewer.dto.admin.TurnStatus;
+import ua.ai_interviewer.dto.telegram.TurnProgress;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The turns in flight of all bots, one per chat, so that a command superseding a turn,
+ * such as {@code /reset}, can cancel it and the running stages can be inspected.
+ */
+@Slf4j
+@Service
+public class TurnRegistry {
+
+    private final Map<String, Turn> turns = new ConcurrentHashMap<>();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * Registers a new turn of the chat, cancelling one that is still registered.
+     */
+    public Turn open(String bot, long chatId) {
+        Turn turn = new Turn(new CancellationToken(), new TurnProgress(bot, chatId));
+        Turn previous = turns.put(key(bot, chatId), turn);
+        if (previous != null && previous.token().cancel("superseded")) {
+            cancelled.incrementAndGet();
+        }
+        return turn;
+    }
+
+    public void close(String bot, long chatId, Turn turn) {
+        turns.remove(key(bot, chatId), turn);
+    }
+
+    /**
+     * Cancels the chat's turn in flight, if any.
+     *
+     * @return true if a turn has been cancelled.
+     */
+    public boolean cancel(String bot, long chatId, String reason) {
+        Turn turn = turns.remove(key(bot, chatId));
+        if (turn == null || !turn.token().cancel(reason)) {
+            return false;
+        }
+        long total = cancelled.incrementAndGet();
+        log.info("Cancelled turn of chat id {} of bot {} on {}, {} cancelled in total", chatId, bot, reason, total);
+        return true;
+    }
+
+    /**
+     * The turns in flight, oldest first.
+     */
+    public List<TurnStatus> getStatus() {
+        return turns.values().stream()
+                .map(turn -> turn.progress().status())
+                .sorted(Comparator.comparingLong(TurnStatus::ageMillis).reversed())
+                .toList();
+    }
+
+    public int getInFlight() {
+        return turns.size();
+    }
+
+    public long getCancelled() {
+        return cancelled.get();
+    }
+
+    private static String key(String bot, long chatId) {
+        return bot + ":" + chatId;
+    }
+
+    public record Turn(CancellationToken token, TurnProgress progress) {
+    }
+}
@@ -0,0 +1,281 @@
+package ua.ai_interviewer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import ua.ai_interviewer.config.TelegramBotsProperties;
+import ua.ai_interviewer.dto.admin.LaneStatus;
+import ua.ai_interviewer.enums.UpstreamLane;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of concurrent calls per upstream lane. Callers wait for a permit
+ * without holding a thread. Waiting calls are served by weighted fair queuing across
+ * chats: each call is tagged with the virtual time at which its chat's share of the
+ * lane would have served it, given the call's cost, and the smallest tag goes first.
+ * A chat sending many or expensive calls therefore waits behind chats that send few.
+ * The bot the chat belongs to is tagged the same way with the bot's weight and the later
+ * of both tags is used, so a bot with many busy chats does not starve the other bots.
+ */
+@Slf4j
+@Service
+public class UpstreamGovernor {
+
+    private static final String NO_BOT = "";
+    private static final long NO_CHAT = 0;
+    private final Map<UpstreamLane, Lane> lanes = new EnumMap<>(UpstreamLane.class);
+    private final Map<String, Double> botWeights = new HashMap<>();
+
+    public UpstreamGovernor(TelegramBotsProperties telegramBotsProperties,
+                            @Value("${upstream.transcription.max-concurrency:4}") int transcriptionConcurrency,
+                            @Value("${upstream.local-transcription.max-concurrency:2}") int localTranscriptionConcurrency,
+                            @Value("${upstream.chat.max-concurrency:16}") int chatConcurrency) {
+        telegramBotsProperties.definitions().forEach(bot -> botWeights.put(bot.name(), bot.weight()));
+        lanes.put(UpstreamLane.TRANSCRIPTION, new Lane(UpstreamLane.TRANSCRIPTION, transcriptionConcurrency));
+        lanes.put(UpstreamLane.LOCAL_TRANSCRIPTION,
+                new Lane(UpstreamLane.LOCAL_TRANSCRIPTION, localTranscriptionConcurrency));
+        lanes.put(UpstreamLane.CHAT, new Lane(UpstreamLane.CHAT, chatConcurrency));
+    }
+
+    public <T> Mono<T> withPermit(UpstreamLane lane, Mono<T> call) {
+        return withPermit(lane, NO_BOT, NO_CHAT, 1, 1, call);
+    }
+
+    /**
+     * Runs the call once the chat's fair share of the lane allows it. The permit is handed back
+     * when the call terminates or is cancelled, and by the lane when the caller cancels after the
+     * permit has been granted but before it has been delivered.
+     *
+     * @param bot    The name of the bot the chat belongs to.
+     * @param chatId The chat the call is made for.
+     * @param cost   The expected cost of the call, e.g. seconds of audio or tokens, in the lane's unit.
+     * @param weight The chat's share relative to other chats, 1 by default.
+     */
+    public <T> Mono<T> withPermit(UpstreamLane lane, String bot, long chatId, double cost, double weight,
+                                  Mono<T> call) {
+        Lane target = lanes.get(lane);
+        double botWeight = botWeights.getOrDefault(bot, 1.0);
+        return Mono.<Permit>create(sink -> target.acquire(sink, bot, botWeight, chatId, cost, weight))
+                .flatMap(permit -> permit.deliver() ? call.doFinally(signal -> target.release()) : Mono.empty());
+    }
+
+    public <T> Flux<T> withPermit(UpstreamLane lane, String bot, long chatId, double cost, double weight,
+                                  Flux<T> call) {
+        Lane target = lanes.get(lane);
+        double botWeight = botWeights.getOrDefault(bot, 1.0);
+        return Mono.<Permit>create(sink -> target.acquire(sink, bot, botWeight, chatId, cost, weight))
+                .flatMapMany(permit -> permit.deliver() ? call.doFinally(signal -> target.release()) : Flux.empty());
+    }
+
+    public int getQueued(UpstreamLane lane) {
+        return lanes.get(lane).queued();
+    }
+
+    public int getQueued(UpstreamLane lane, String bot) {
+        return lanes.get(lane).queued(bot);
+    }
+
+    public int getAvailable(UpstreamLane lane) {
+        return lanes.get(lane).available();
+    }
+
+    public int getCapacity(UpstreamLane lane) {
+        return lanes.get(lane).capacity;
+    }
+
+    public List<LaneStatus> getStatus() {
+        List<LaneStatus> status = new ArrayList<>(lanes.size());
+        for (Lane lane : lanes.values()) {
+            Map<String, Integer> queuedByBot = new TreeMap<>();
+            botWeights.keySet().forEach(bot -> queuedByBot.put(bot, lane.queued(bot)));
+            status.add(new LaneStatus(lane.name, lane.capacity, lane.available(), lane.queued(), queuedByBot));
+        }
+        return status;
+    }
+
+    private static final class Lane {
+
+        private static final int MAX_TRACKED_CHATS = 1024;
+
+        private final UpstreamLane name;
+        private final int capacity;
+        private final Queue<Permit> waiters = new PriorityQueue<>(
+                Comparator.comparingDouble((Permit permit) -> permit.finish).thenComparingLong(permit -> permit.sequence));
+        private final Map<Long, Double> lastFinish = new HashMap<>();
+        private final Map<String, Double> lastBotFinish = new HashMap<>();
+        // mirrors of the state guarded by the lane, read without locking
+        private final Map<String, AtomicInteger> queuedByBot = new ConcurrentHashMap<>();
+        private volatile int queued;
+        private volatile int availableSnapshot;
+        private int available;
+        private double virtualTime;
+        private long sequence;
+
+        private Lane(UpstreamLane name, int permits) {
+            this.name = name;
+            this.capacity = permits;
+            this.available = permits;
+            this.availableSnapshot = permits;
+        }
+
+        /**
+         * A cancellation running while the lane is locked here waits to remove the permit from
+         * the queue, so a permit is only charged and queued if it is still requested.
+         */
+        private void acquire(MonoSink<Permit> sink, String bot, double botWeight, long chatId, double cost,
+                             double weight) {
+            Permit permit;
+            synchronized (this) {
+                double chatShare = Math.max(cost, 0) / Math.max(weight, Double.MIN_NORMAL);
+                double botShare = Math.max(cost, 0) / Math.max(botWeight, Double.MIN_NORMAL);
+                double chatStart = Math.max(virtualTime, lastFinish.getOrDefault(chatId, 0.0));
+                double chatFinish = chatStart + chatShare;
+                double botStart = Math.max(virtualTime, lastBotFinish.getOrDefault(bot, 0.0));
+                double botFinish = botStart + botShare;
+                double start = Math.max(chatStart, botStart);
+                double finish = Math.max(chatFinish, botFinish);
+                permit = new Permit(sink, bot, chatId, chatShare, botShare, start, finish, sequence++);
+                sink.onCancel(() -> cancel(permit));
+                if (available == 0) {
+                    if (permit.isCancelled()) {
+                        return;
+                    }
+                    lastFinish.put(chatId, chatFinish);
+                    lastBotFinish.put(bot, botFinish);
+                    waiters.add(permit);
+                    queued = waiters.size();
+                    queuedByBot.computeIfAbsent(bot, key -> new AtomicInteger()).incrementAndGet();
+                    log.debug("Waiting for {} permit, {} queued", name, waiters.size());
+                    return;
+                }
+                if (!permit.grant()) {
+                    return;
+                }
+                lastFinish.put(chatId, chatFinish);
+                lastBotFinish.put(bot, botFinish);
+                available--;
+                availableSnapshot = available;
+                virtualTime = start;
+            }
+            sink.success(permit);
+        }
+
+        /**
+         * A permit granted to a caller that cancelled may have been dropped by its sink rather
+         * than delivered, so it is handed back here unless the call took it.
+         */
+        private void cancel(Permit permit) {
+            if (permit.withdraw()) {
+                synchronized (this) {
+                    if (waiters.remove(permit)) {
+                        dequeued(permit);
+                        // the chat and the bot are not charged for a call that never ran
+                        lastFinish.computeIfPresent(permit.chatId, (chatId, finish) -> finish - permit.chatShare);
+                        lastBotFinish.computeIfPresent(permit.bot, (bot, finish) -> finish - permit.botShare);
+                    }
+                }
+            } else if (permit.abandon()) {
+                log.debug("Handing back a {} permit granted to a cancelled call", name);
+                release();
+            }
+        }
+
+        private void release() {
+            Permit next;
+            do {
+                synchronized (this) {
+                    next = waiters.poll();
+                    if (next == null) {
+                        available++;
+                        availableSnapshot = available;
+                        return;
+                    }
+                    dequeued(next);
+                    virtualTime = Math.max(virtualTime, next.start);
+                    if (lastFinish.size() > MAX_TRACKED_CHATS) {
+                        lastFinish.values().removeIf(finish -> finish <= virtualTime);
+                    }
+                }
+            } while (!next.grant());
+            next.sink.success(next);
+        }
+
+        private void dequeued(Permit permit) {
+            queued = waiters.size();
+            queuedByBot.get(permit.bot).decrementAndGet();
+        }
+
+        private int queued() {
+            return queued;
+        }
+
+        private int queued(String bot) {
+            AtomicInteger count = queuedByBot.get(bot);
+            return count == null ? 0 : count.get();
+        }
+
+        private int available() {
+            return availableSnapshot;
+        }
+    }
+
+    /**
+     * A call's request for a permit, queued while the lane has none available. Once granted
+     * it is either delivered to the call or abandoned by a caller that cancelled meanwhile.
+     */
+    private static final class Permit {
+
+        private static final int REQUESTED = 0;
+        private static final int GRANTED = 1;
+        private static final int DELIVERED = 2;
+        private static final int CANCELLED = 3;
+
+        private final MonoSink<Permit> sink;
+        private final String bot;
+        private final long chatId;
+        private final double chatShare;
+        private final double botShare;
+        private final double start;
+        private final double finish;
+        private final long sequence;
+        private final AtomicInteger state = new AtomicInteger(REQUESTED);
+
+        private Permit(MonoSink<Permit> sink, String bot, long chatId, double chatShare, double botShare,
+                       double start, double finish, long sequence) {
+            this.sink = sink;
+            this.bot = bot;
+            this.chatId = chatId;
+            this.chatShare = chatShare;
+            this.botShare = botShare;
+            this.start = start;
+            this.finish = finish;
+            this.sequence = sequence;
+        }
+
+        private boolean grant() {
+            return state.compareAndSet(REQUESTED, GRANTED);
+        }
+
+        private boolean deliver() {
+            return state.compareAndSet(GRANTED, DELIVERED);
+        }
+
+        private boolean withdraw() {
+            return state.compareAndSet(REQUESTED, CANCELLED);
+        }
+
+        private boolean abandon() {
+            return state.compareAndSet(GRANTED, CANCELLED);
+        }
+
+        private boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ua.ai_interviewer.service;
+
+import ua.ai_interviewer.dto.chatgpt.Usage;
+
+public interface UsageService {
+
+    void recordTokens(Long chatId, Usage usage);
+
+    void recordAudio(Long chatId, int seconds);
+
+    boolean isOverDailyQuota(Long chatId);
+
+    /**
+     * The chat's share of upstream capacity, relative to a chat that has not used anything today.
+     */
+    double getWeight(Long chatId);
+
+    int flush();
+}
@@ -0,0 +1,125 @@
+package ua.ai_interviewer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the voice notes a chat sends in quick succession into one turn. A batch opened
+ * by a note stays open while further notes follow within {@code voice.coalescing.window}
+ * of the previous one, for at most {@code voice.coalescing.max-window} and
+ * {@code voice.coalescing.max-notes} notes. The turn receives the notes as they arrive,
+ * so it can work on them before the batch closes.
+ */
+@Slf4j
+@Service
+public class VoiceCoalescer {
+
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private final Scheduler scheduler = Schedulers.parallel();
+    private final long windowNanos;
+    private final long maxWindowNanos;
+    private final int maxNotes;
+
+    public VoiceCoalescer(@Value("${voice.coalescing.window:PT3S}") Duration window,
+                          @Value("${voice.coalescing.max-window:PT10S}") Duration maxWindow,
+                          @Value("${voice.coalescing.max-notes:5}") int maxNotes) {
+        this.windowNanos = window.toNanos();
+        this.maxWindowNanos = maxWindow.toNanos();
+        this.maxNotes = maxNotes;
+    }
+
+    /**
+     * Opens a batch with the note.
+     *
+     * @return The notes of the batch in order of arrival, completing when the batch closes.
+     */
+    public Flux<Message> open(String bot, Message first) {
+        String key = key(bot, first.getChatId());
+        Batch batch = new Batch(key);
+        Batch previous = batches.put(key, batch);
+        if (previous != null) {
+            previous.close();
+        }
+        batch.offer(first);
+        return batch.notes.asFlux()
+                .doFinally(signal -> batch.close());
+    }
+
+    /**
+     * Adds the note to the chat's open batch.
+     *
+     * @return Whether the note was added; otherwise it is to be handled on its own.
+     */
+    public boolean join(String bot, Message message) {
+        Batch batch = batches.get(key(bot, message.getChatId()));
+        if (batch == null || !batch.offer(message)) {
+            return false;
+        }
+        log.debug("Voice note {} of chat id {} joined the open batch", message.getMessageId(), message.getChatId());
+        return true;
+    }
+
+    private static String key(String bot, Long chatId) {
+        return bot + ":" + chatId;
+    }
+
+    private final class Batch {
+
+        private final String key;
+        private final Sinks.Many<Message> notes = Sinks.many().unicast().onBackpressureBuffer();
+        private final long openedNanos = System.nanoTime();
+        private long lastNanos;
+        private int count;
+        private boolean closed;
+
+        private Batch(String key) {
+            this.key = key;
+        }
+
+        private synchronized boolean offer(Message message) {
+            long now = System.nanoTime();
+            if (closed || count >= maxNotes || now - openedNanos >= maxWindowNanos) {
+                return false;
+            }
+            count++;
+            lastNanos = now;
+            notes.tryEmitNext(message);
+            if (count >= maxNotes) {
+                close();
+            } else {
+                scheduler.schedule(this::closeIfIdle, windowNanos, TimeUnit.NANOSECONDS);
+            }
+            return true;
+        }
+
+        private synchronized void closeIfIdle() {
+            long now = System.nanoTime();
+            if (now - lastNanos >= windowNanos || now - openedNanos >= maxWindowNanos) {
+                close();
+            }
+        }
+
+        private synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            batches.remove(key, this);
+            notes.tryEmitComplete();
+            if (count > 1) {
+                log.debug("Coalesced {} voice notes of {}", count, key);
+            }
+        }
+    }
+}
@@ -4,21 +4,26 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
-import ua.ai_interviewer.dto.chatgpt.ChatMessage;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.model.Interview;
 import ua.ai_interviewer.service.AsyncOpenAIService;
+import ua.ai_interviewer.service.CancellationToken;
+import ua.ai_interviewer.service.ChatGPTRequestEncoder;
+import ua.ai_interviewer.service.DegradationController;
 import ua.ai_interviewer.util.WebClientUtil;
 
-import java.util.List;
-
-import static ua.ai_interviewer.util.WebClientUtil.CHAT_URI;
-import static ua.ai_interviewer.util.WebClientUtil.createChatGPTRequest;
+import static ua.ai_interviewer.util.FlightRecorderUtil.recordStreamStage;
+import static ua.ai_interviewer.util.FlightRecorderUtil.utf8Size;
+import static ua.ai_interviewer.util.WebClientUtil.CHAT_PATH;
 
 @Slf4j
 @Service
@@ -27,27 +32,34 @@ public class AsyncOpenAIServiceImpl implements AsyncOpenAIService {
 
 
     private final WebClient webClient;
+    private final ChatGPTRequestEncoder chatGPTRequestEncoder;
+    private final DegradationController degradationController;
     @Value("${chat.gpt.token}")
     private String apiToken;
+    @Value("${openai.api.uri:https://api.openai.com}")
+    private String apiUri;
 
 
-    public Flux<ServerSentEvent<String>> getResponseFromChatGpt(List<ChatMessage> conversation) {
-        var chatGPTRequest = createChatGPTRequest(conversation, true);
+    public Flux<ServerSentEvent<String>> getResponseFromChatGpt(Interview interview, CancellationToken token) {
         log.debug("Sending POST to ChatGPT");
-        log.debug("request {}", chatGPTRequest);
 
-        return performPostRequest(chatGPTRequest);
+        // encoded per subscription, so a retry gets a fresh buffer
+        return token.bind(recordStreamStage("chat.stream", interview.getChatId(), event -> performPostRequest(
+                Mono.fromCallable(() -> chatGPTRequestEncoder.encode(interview, true,
+                        degradationController.getChatModel(), degradationController.getContextLimit()))
+                        .doOnNext(body -> event.addRequestBytes(body.readableByteCount())))
+                .doOnNext(sse -> event.addResponseBytes(utf8Size(sse.data())))));
     }
 
-    private Flux<ServerSentEvent<String>> performPostRequest(Object bodyValue) {
+    private Flux<ServerSentEvent<String>> performPostRequest(Mono<DataBuffer> body) {
         ParameterizedTypeReference<ServerSentEvent<String>> type = new ParameterizedTypeReference<>() {
         };
 
         return webClient.post()
-                .uri(CHAT_URI)
+                .uri(apiUri + CHAT_PATH)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken)
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(bodyValue)
+                .body(BodyInserters.fromDataBuffers(body))
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, WebClientUtil::handleError)
                 .bodyToFlux(type);
@@ -0,0 +1,217 @@
+package ua.ai_interviewer.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.stereotype.Service;
+import ua.ai_interviewer.dto.admin.EncoderCacheStatus;
+import ua.ai_interviewer.dto.chatgpt.ChatMessage;
+import ua.ai_interviewer.enums.ChatGPTModel;
+import ua.ai_interviewer.exception.EventHandlingException;
+import ua.ai_interviewer.model.Interview;
+import ua.ai_interviewer.service.ChatGPTRequestEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static ua.ai_interviewer.util.WebClientUtil.TEMPERATURE;
+
+/**
+ * Builds ChatGPT request bodies from pre-encoded messages. The JSON of every message of
+ * an interview is kept per interview, so each turn encodes only the messages added since
+ * the previous one and joins the rest into a pooled buffer.
+ * <p>
+ * Lookups do not lock the cache. Once it outgrows its limit, the least recently used
+ * tenth of it is evicted at once, by whichever turn finds it over the limit first.
+ */
+@Slf4j
+@Service
+public class ChatGPTRequestEncoderImpl implements ChatGPTRequestEncoder {
+
+    private static final String STREAM_OPTIONS = ",\"stream_options\":{\"include_usage\":true}";
+    private static final byte[] SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final Map<String, EncodedConversation> conversations = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong reusedMessages = new AtomicLong();
+    private final AtomicLong encodedMessages = new AtomicLong();
+    private final int maxConversations;
+
+    public ChatGPTRequestEncoderImpl(ObjectMapper objectMapper,
+                                     @Value("${chat.gpt.encoder.max-conversations:10000}") int maxConversations) {
+        this.objectMapper = objectMapper;
+        this.maxConversations = maxConversations;
+    }
+
+    @Override
+    public DataBuffer encode(Interview interview, boolean stream, ChatGPTModel model, int maxMessages) {
+        return encode(interview, stream, model, maxMessages, getEncodedConversation(interview.getId()), true);
+    }
+
+    @Override
+    public DataBuffer encodeUncached(Interview interview, boolean stream, ChatGPTModel model, int maxMessages) {
+        return encode(interview, stream, model, maxMessages, new EncodedConversation(), false);
+    }
+
+    private DataBuffer encode(Interview interview, boolean stream, ChatGPTModel model, int maxMessages,
+                              EncodedConversation encoded, boolean counted) {
+        List<ChatMessage> messages = interview.getConversation();
+        List<byte[]> segments = new ArrayList<>(messages.size() + 1);
+        if (interview.getSummary() != null && !interview.getSummary().isBlank()) {
+            segments.add(toJson(interview.getContext().get(0)));
+        }
+        int added;
+        synchronized (encoded) {
+            added = encoded.update(interview.getArchivedMessages(), messages);
+            int skipped = Math.max(0, encoded.segments.size() - maxMessages);
+            segments.addAll(encoded.segments.subList(skipped, encoded.segments.size()));
+        }
+        if (counted) {
+            reusedMessages.addAndGet(messages.size() - added);
+            encodedMessages.addAndGet(added);
+        }
+
+        byte[] prefix = prefix(stream, model);
+        int size = prefix.length + SUFFIX.length + Math.max(0, segments.size() - 1);
+        for (byte[] segment : segments) {
+            size += segment.length;
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(size);
+        buffer.write(prefix);
+        for (int i = 0; i < segments.size(); i++) {
+            if (i > 0) {
+                buffer.write((byte) ',');
+            }
+            buffer.write(segments.get(i));
+        }
+        buffer.write(SUFFIX);
+        log.debug("Encoded ChatGPT request of {} messages, {} newly encoded, {} bytes",
+                segments.size(), added, size);
+
+        return buffer;
+    }
+
+    /**
+     * Share of the conversation messages taken from the cache rather than encoded, 0 before any request.
+     */
+    @Override
+    public EncoderCacheStatus getStatus() {
+        long reused = reusedMessages.get();
+        long total = reused + encodedMessages.get();
+        return new EncoderCacheStatus(conversations.size(), maxConversations, reused, encodedMessages.get(),
+                total == 0 ? 0 : (double) reused / total);
+    }
+
+    private EncodedConversation getEncodedConversation(String interviewId) {
+        EncodedConversation encoded = conversations.computeIfAbsent(interviewId, id -> new EncodedConversation());
+        encoded.lastUsedNanos = System.nanoTime();
+        if (conversations.size() > maxConversations && evictionLock.tryLock()) {
+            try {
+                evictLeastRecentlyUsed();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * The last use times are copied before sorting, as turns keep updating them.
+     */
+    private void evictLeastRecentlyUsed() {
+        int excess = conversations.size() - maxConversations + Math.max(1, maxConversations / 10);
+        if (excess <= 0) {
+            return;
+        }
+        conversations.entrySet().stream()
+                .map(entry -> new LastUse(entry.getKey(), entry.getValue(), entry.getValue().lastUsedNanos))
+                .toList()
+                .stream()
+                .sorted(Comparator.comparingLong(LastUse::nanos))
+                .limit(excess)
+                .forEach(lastUse -> conversations.remove(lastUse.interviewId(), lastUse.conversation()));
+    }
+
+    /**
+     * Streamed responses are asked to end with a usage chunk, which they otherwise leave out.
+     */
+    private byte[] prefix(boolean stream, ChatGPTModel model) {
+        return ("{\"model\":\"" + model.getValue() + "\",\"temperature\":" + TEMPERATURE
+                + ",\"stream\":" + stream + (stream ? STREAM_OPTIONS : "")
+                + ",\"messages\":[").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] toJson(ChatMessage message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new EventHandlingException("Failed to encode chat message: " + e.getMessage());
+        }
+    }
+
+    private record LastUse(String interviewId, EncodedConversation conversation, long nanos) {
+    }
+
+    /**
+     * Messages may have been encoded without being saved, e.g. by a failed turn, or edited
+     * since, so every cached message is checked against the conversation before it is
+     * reused. The check compares hashes only, the content hashes being cached by the strings.
+     */
+    private final class EncodedConversation {
+
+        private final List<byte[]> segments = new ArrayList<>();
+        private final List<Integer> hashes = new ArrayList<>();
+        private long firstIndex;
+        private volatile long lastUsedNanos;
+
+        private int update(long base, List<ChatMessage> messages) {
+            if (base < firstIndex) {
+                clear(base);
+            } else if (base > firstIndex) {
+                int archived = (int) Math.min(segments.size(), base - firstIndex);
+                segments.subList(0, archived).clear();
+                hashes.subList(0, archived).clear();
+                firstIndex = base;
+            }
+
+            int reusable = Math.min(segments.size(), messages.size());
+            for (int i = 0; i < reusable; i++) {
+                if (hashes.get(i) != hash(messages.get(i))) {
+                    reusable = i;
+                    break;
+                }
+            }
+            segments.subList(reusable, segments.size()).clear();
+            hashes.subList(reusable, hashes.size()).clear();
+
+            for (int i = reusable; i < messages.size(); i++) {
+                segments.add(toJson(messages.get(i)));
+                hashes.add(hash(messages.get(i)));
+            }
+            return messages.size() - reusable;
+        }
+
+        private void clear(long base) {
+            segments.clear();
+            hashes.clear();
+            firstIndex = base;
+        }
+
+        private static int hash(ChatMessage message) {
+            return Objects.hash(message.getRole(), message.getContent());
+        }
+    }
+}
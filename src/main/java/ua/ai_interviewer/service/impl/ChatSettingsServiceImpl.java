@@ -0,0 +1,184 @@
+package ua.ai_interviewer.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import ua.ai_interviewer.config.TelegramBotsProperties;
+import ua.ai_interviewer.dto.telegram.BotDefinition;
+import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.model.ChatSettings;
+import ua.ai_interviewer.model.Interview;
+import ua.ai_interviewer.repository.ChatSettingsRepository;
+import ua.ai_interviewer.service.ChatSettingsService;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Chat settings per bot with a near-cache in front of Mongo. Chats of the bot that owns
+ * older data keep the settings they had before bots had names, which in turn are taken
+ * from the active {@link Interview} if the chat predates the settings collection.
+ * The cache holds the {@code chat-settings.cache.max-entries} most recently used chats,
+ * each for {@code chat-settings.cache.ttl}, so changes made by another instance show up.
+ */
+@Slf4j
+@Service
+public class ChatSettingsServiceImpl implements ChatSettingsService {
+
+    private static final int UPDATE_LOCKS = 64;
+
+    private final ChatSettingsRepository chatSettingsRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TelegramBotsProperties telegramBotsProperties;
+    private final Map<String, Cached> cache;
+    private final Object[] updateLocks = new Object[UPDATE_LOCKS];
+    private final long ttlNanos;
+
+    public ChatSettingsServiceImpl(ChatSettingsRepository chatSettingsRepository,
+                                   MongoTemplate mongoTemplate,
+                                   TelegramBotsProperties telegramBotsProperties,
+                                   @Value("${chat-settings.cache.max-entries:10000}") int maxEntries,
+                                   @Value("${chat-settings.cache.ttl:PT10M}") Duration ttl) {
+        this.chatSettingsRepository = chatSettingsRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.telegramBotsProperties = telegramBotsProperties;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        Arrays.setAll(updateLocks, i -> new Object());
+    }
+
+    /**
+     * Loaded outside the cache's lock; of two concurrent loads the first one cached wins.
+     */
+    @Override
+    public ChatSettings get(String bot, Long chatId) {
+        String id = ChatSettings.id(bot, chatId);
+        ChatSettings cached = cached(id);
+        if (cached != null) {
+            return cached;
+        }
+        ChatSettings loaded = load(bot, chatId);
+        synchronized (cache) {
+            Cached current = cache.get(id);
+            if (current != null && !current.isExpired()) {
+                return current.settings;
+            }
+            cache.put(id, new Cached(loaded, System.nanoTime()));
+        }
+        return loaded;
+    }
+
+    @Override
+    public ChatSettings setLanguage(String bot, Long chatId, Language language) {
+        return update(bot, chatId, settings -> settings.toBuilder().language(language).build());
+    }
+
+    @Override
+    public ChatSettings toggleSpeeching(String bot, Long chatId) {
+        return update(bot, chatId, settings -> settings.toBuilder().speeching(!settings.isSpeeching()).build());
+    }
+
+    /**
+     * Updates of one chat are serialized by a lock striped over the chats, so a toggle is not lost.
+     */
+    private ChatSettings update(String bot, Long chatId, UnaryOperator<ChatSettings> change) {
+        String id = ChatSettings.id(bot, chatId);
+        synchronized (updateLocks[Math.floorMod(id.hashCode(), UPDATE_LOCKS)]) {
+            ChatSettings updated = chatSettingsRepository.save(change.apply(get(bot, chatId)));
+            synchronized (cache) {
+                cache.put(id, new Cached(updated, System.nanoTime()));
+            }
+            return updated;
+        }
+    }
+
+    private ChatSettings cached(String id) {
+        synchronized (cache) {
+            Cached cached = cache.get(id);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.isExpired()) {
+                cache.remove(id);
+                return null;
+            }
+            return cached.settings;
+        }
+    }
+
+    private ChatSettings load(String bot, Long chatId) {
+        return chatSettingsRepository.findById(ChatSettings.id(bot, chatId))
+                .orElseGet(() -> {
+                    ChatSettings migrated = chatSettingsRepository.save(migrate(bot, chatId));
+                    if (bot.equals(telegramBotsProperties.legacyBot())) {
+                        mongoTemplate.remove(unnamed(chatId), mongoTemplate.getCollectionName(ChatSettings.class));
+                    }
+                    return migrated;
+                });
+    }
+
+    private ChatSettings migrate(String bot, Long chatId) {
+        BotDefinition definition = telegramBotsProperties.find(bot);
+        ChatSettings.ChatSettingsBuilder settings = ChatSettings.builder()
+                .id(ChatSettings.id(bot, chatId))
+                .bot(bot)
+                .chatId(chatId)
+                .language(definition.language())
+                .speeching(definition.speeching());
+        if (!bot.equals(telegramBotsProperties.legacyBot())) {
+            return settings.build();
+        }
+
+        Document legacy = mongoTemplate.findOne(unnamed(chatId), Document.class,
+                mongoTemplate.getCollectionName(ChatSettings.class));
+        if (legacy != null) {
+            log.debug("Assigning settings of chat id {} to bot {}", chatId, bot);
+        } else {
+            Query query = Query.query(Criteria.where("chatId").is(chatId).and("active").is(true));
+            query.fields().include("language").include("speeching");
+            legacy = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(Interview.class));
+            if (legacy != null) {
+                log.debug("Migrating settings of chat id {} from its interview", chatId);
+            }
+        }
+        if (legacy != null && legacy.getString("language") != null) {
+            settings.language(Language.valueOf(legacy.getString("language")))
+                    .speeching(legacy.getBoolean("speeching", definition.speeching()));
+        }
+        return settings.build();
+    }
+
+    /**
+     * Settings stored before bots had names, with the chat id as their id.
+     */
+    private static Query unnamed(Long chatId) {
+        return Query.query(Criteria.where("_id").is(chatId));
+    }
+
+    private final class Cached {
+
+        private final ChatSettings settings;
+        private final long loadedNanos;
+
+        private Cached(ChatSettings settings, long loadedNanos) {
+            this.settings = settings;
+            this.loadedNanos = loadedNanos;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - loadedNanos > ttlNanos;
+        }
+    }
+}
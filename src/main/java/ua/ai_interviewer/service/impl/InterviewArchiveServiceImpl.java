@@ -0,0 +1,130 @@
+package ua.ai_interviewer.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ua.ai_interviewer.dto.chatgpt.ChatMessage;
+import ua.ai_interviewer.model.ArchivedInterview;
+import ua.ai_interviewer.model.ConversationPage;
+import ua.ai_interviewer.model.Interview;
+import ua.ai_interviewer.service.InterviewArchiveService;
+import ua.ai_interviewer.service.InterviewService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Moves interviews that were reset and stayed idle for the retention period out of the
+ * hot collection, together with their conversation pages, so the working set of
+ * {@code findByChatIdAndActiveTrue} stays small.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InterviewArchiveServiceImpl implements InterviewArchiveService {
+
+    private final MongoTemplate mongoTemplate;
+    private final InterviewService interviewService;
+    private final ObjectMapper objectMapper;
+    @Value("${interview.archive.retention:P7D}")
+    private Duration retention;
+    @Value("${interview.archive.batch-size:200}")
+    private int batchSize;
+    @Value("${interview.archive.compress:true}")
+    private boolean compress;
+    @Getter
+    private volatile int lastRunMoved;
+    @Getter
+    private volatile Instant lastRunAt;
+
+    /**
+     * Goes through the idle interviews in id order, so an interview that could not be removed,
+     * e.g. because it was deleted meanwhile, is not fetched again.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${interview.archive.interval:PT1H}",
+            initialDelayString = "${interview.archive.initial-delay:PT5M}")
+    public int archiveInactive() {
+        Instant cutoff = Instant.now().minus(retention);
+
+        int moved = 0;
+        String lastId = null;
+        List<Interview> batch;
+        do {
+            batch = mongoTemplate.find(idle(cutoff, lastId), Interview.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            batch.forEach(interview -> mongoTemplate.save(toArchived(interview)));
+
+            // the pages go last: an interview left behind without them would be archived again
+            // and overwrite its complete archive, while orphaned pages are merely unused
+            List<String> ids = batch.stream().map(Interview::getId).toList();
+            long removed = mongoTemplate.remove(query(where("id").in(ids)), Interview.class).getDeletedCount();
+            if (removed < ids.size()) {
+                log.warn("Removed {} of {} archived interviews, the rest were gone already", removed, ids.size());
+            }
+            mongoTemplate.remove(query(where("interviewId").in(ids)), ConversationPage.class);
+            moved += batch.size();
+            lastId = ids.get(ids.size() - 1);
+        } while (batch.size() == batchSize);
+
+        lastRunMoved = moved;
+        lastRunAt = Instant.now();
+        log.info("Archived {} inactive interviews idle since {}", moved, cutoff);
+        return moved;
+    }
+
+    private Query idle(Instant cutoff, String afterId) {
+        Criteria criteria = where("active").is(false).orOperator(
+                where("lastActivityAt").lt(cutoff),
+                where("lastActivityAt").exists(false)
+        );
+        if (afterId != null) {
+            criteria = criteria.and("id").gt(afterId);
+        }
+        return query(criteria).with(Sort.by("id")).limit(batchSize);
+    }
+
+    private ArchivedInterview toArchived(Interview interview) {
+        List<ChatMessage> conversation = interviewService.getFullConversation(interview);
+        ArchivedInterview.ArchivedInterviewBuilder archived = ArchivedInterview.builder()
+                .id(interview.getId())
+                .bot(interview.getBot())
+                .chatId(interview.getChatId())
+                .lastActivityAt(interview.getLastActivityAt())
+                .archivedAt(Instant.now())
+                .messageCount(conversation.size())
+                .summary(interview.getSummary());
+
+        return compress
+                ? archived.compressedConversation(gzip(conversation)).build()
+                : archived.conversation(conversation).build();
+    }
+
+    private byte[] gzip(List<ChatMessage> conversation) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, conversation);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
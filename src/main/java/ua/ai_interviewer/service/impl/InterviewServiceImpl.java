@@ -2,14 +2,34 @@ package ua.ai_interviewer.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import ua.ai_interviewer.enums.Language;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+import ua.ai_interviewer.config.TelegramBotsProperties;
+import ua.ai_interviewer.dto.chatgpt.ChatGPTResponse;
+import ua.ai_interviewer.dto.chatgpt.ChatMessage;
+import ua.ai_interviewer.exception.OpenAIRequestException;
+import ua.ai_interviewer.model.ConversationPage;
 import ua.ai_interviewer.model.Interview;
+import ua.ai_interviewer.repository.ConversationPageRepository;
 import ua.ai_interviewer.repository.InterviewRepository;
 import ua.ai_interviewer.service.InterviewService;
+import ua.ai_interviewer.service.OpenAiService;
+import ua.ai_interviewer.service.UpstreamGovernor;
+import ua.ai_interviewer.service.UsageService;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static ua.ai_interviewer.enums.UpstreamLane.CHAT;
 
 @Slf4j
 @Service
@@ -17,37 +37,154 @@ import java.util.Optional;
 public class InterviewServiceImpl implements InterviewService {
 
     private final InterviewRepository interviewRepository;
+    private final ConversationPageRepository conversationPageRepository;
+    private final MongoTemplate mongoTemplate;
+    private final OpenAiService openAiService;
+    private final UpstreamGovernor upstreamGovernor;
+    private final UsageService usageService;
+    private final TelegramBotsProperties telegramBotsProperties;
+    @Value("${interview.conversation.tail-window:40}")
+    private int tailWindow;
+    @Value("${interview.conversation.page-size:50}")
+    private int pageSize;
+    @Value("${interview.conversation.summarize:true}")
+    private boolean summarize;
 
     @Override
-    public Interview getActiveIfExistOrCreateByChatId(Long chatId) {
-        return interviewRepository.findByChatIdAndActiveTrue(chatId)
-                .orElseGet(() -> create(chatId));
+    public Interview getActiveIfExistOrCreateByChatId(String bot, Long chatId) {
+        return findActive(bot, chatId)
+                .orElseGet(() -> create(bot, chatId));
     }
 
     @Override
     public void update(Interview interview) {
+        archiveOverflow(interview, Context.empty());
+        interview.setLastActivityAt(Instant.now());
         interviewRepository.save(interview);
     }
 
     @Override
-    public Optional<Interview> getActiveByChatId(Long chatId) {
-        return interviewRepository.findByChatIdAndActiveTrue(chatId);
+    public Optional<Interview> getActiveByChatId(String bot, Long chatId) {
+        return findActive(bot, chatId);
+    }
+
+    /**
+     * An instance of a version from before bots had names, still running during a rolling
+     * deploy, keeps creating interviews without a bot after {@link #assignUnnamed} has run.
+     * Those belong to the legacy bot, which claims them when it reads them; the bot is stored
+     * with the next update.
+     */
+    private Optional<Interview> findActive(String bot, Long chatId) {
+        Optional<Interview> interview = interviewRepository.findByBotAndChatIdAndActiveTrue(bot, chatId);
+        if (interview.isPresent() || !bot.equals(telegramBotsProperties.legacyBot())) {
+            return interview;
+        }
+        return interviewRepository.findByBotIsNullAndChatIdAndActiveTrue(chatId)
+                .map(unnamed -> {
+                    log.info("Interview {} without a bot is claimed by bot {}", unnamed.getId(), bot);
+                    unnamed.setBot(bot);
+                    return unnamed;
+                });
     }
 
     @Override
-    public Interview create(Long chatId, Language language, boolean speeching) {
+    public Interview create(String bot, Long chatId) {
         return interviewRepository.save(
                 Interview.builder()
+                        .bot(bot)
                         .chatId(chatId)
                         .active(true)
-                        .language(language)
-                        .speeching(speeching)
+                        .lastActivityAt(Instant.now())
                         .conversation(new ArrayList<>())
                         .build()
         );
     }
 
-    private Interview create(Long chatId) {
-        return create(chatId, Language.UKRAINIAN, true);
+    @Override
+    public long assignUnnamed(String bot) {
+        long assigned = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("bot").exists(false)),
+                Update.update("bot", bot),
+                Interview.class
+        ).getModifiedCount();
+        if (assigned > 0) {
+            log.info("Assigned {} interviews to bot {}", assigned, bot);
+        }
+        return assigned;
+    }
+
+    @Override
+    public List<ChatMessage> getConversationPage(Interview interview, int number) {
+        return conversationPageRepository.findByInterviewIdAndNumber(interview.getId(), number)
+                .map(ConversationPage::getMessages)
+                .orElseGet(List::of);
+    }
+
+    @Override
+    public List<ChatMessage> getFullConversation(Interview interview) {
+        List<ChatMessage> conversation = new ArrayList<>(
+                interview.getArchivedMessages() + interview.getConversation().size());
+        conversationPageRepository.findByInterviewIdOrderByNumberAsc(interview.getId())
+                .forEach(page -> conversation.addAll(page.getMessages()));
+        conversation.addAll(interview.getConversation());
+        return conversation;
+    }
+
+    /**
+     * Pages are written by interview and number, so archiving the same messages again after
+     * the interview could not be saved overwrites the page instead of failing on its index.
+     */
+    @Override
+    public void archiveOverflow(Interview interview, ContextView context) {
+        List<ChatMessage> conversation = interview.getConversation();
+        List<ChatMessage> archived = new ArrayList<>();
+        while (conversation.size() >= tailWindow + pageSize) {
+            List<ChatMessage> oldest = conversation.subList(0, pageSize);
+            mongoTemplate.upsert(
+                    Query.query(Criteria.where("interviewId").is(interview.getId())
+                            .and("number").is(interview.getArchivedPages())),
+                    Update.update("messages", new ArrayList<>(oldest)),
+                    ConversationPage.class
+            );
+            archived.addAll(oldest);
+            oldest.clear();
+            interview.setArchivedPages(interview.getArchivedPages() + 1);
+            interview.setArchivedMessages(interview.getArchivedMessages() + pageSize);
+            log.debug("Archived conversation page {} of interview {}",
+                    interview.getArchivedPages(), interview.getId());
+        }
+        if (summarize && interview.isActive() && !archived.isEmpty()) {
+            summarize(interview, archived, context);
+        }
+    }
+
+    /**
+     * Folds the archived messages into the summary sent ahead of the tail window. If that
+     * fails the previous summary is kept; the messages stay available in their pages.
+     */
+    private void summarize(Interview interview, List<ChatMessage> archived, ContextView context) {
+        Long chatId = interview.getChatId();
+        long characters = archived.stream().mapToLong(message -> message.getContent() == null
+                ? 0 : message.getContent().length()).sum();
+        try {
+            ChatGPTResponse response = upstreamGovernor.withPermit(CHAT, interview.getBot(), chatId, characters / 4.0,
+                            usageService.getWeight(chatId),
+                            openAiService.summarize(chatId, interview.getSummary(), archived))
+                    .contextWrite(context)
+                    .blockOptional()
+                    .orElseThrow(() -> new OpenAIRequestException("Empty summary from ChatGPT"));
+            if (response.getUsage() != null) {
+                usageService.recordTokens(chatId, response.getUsage());
+            }
+            String summary = response.getChoices().stream()
+                    .map(choice -> choice.getMessage().getContent())
+                    .collect(Collectors.joining());
+            if (!summary.isBlank()) {
+                interview.setSummary(summary);
+                log.debug("Summarized {} archived messages of interview {}", archived.size(), interview.getId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not summarize archived messages of interview {}", interview.getId(), e);
+        }
     }
 }
@@ -0,0 +1,109 @@
+package ua.ai_interviewer.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.dto.wisper.WisperResponse;
+import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.enums.UpstreamLane;
+import ua.ai_interviewer.exception.SpeechToTextException;
+import ua.ai_interviewer.service.SpeechToTextProvider;
+import ua.ai_interviewer.util.LogRedactor;
+
+import java.io.File;
+import java.time.Duration;
+
+import static ua.ai_interviewer.util.FlightRecorderUtil.recordStage;
+import static ua.ai_interviewer.util.FlightRecorderUtil.utf8Size;
+import static ua.ai_interviewer.util.WebClientUtil.TRANSCRIPT_PATH;
+import static ua.ai_interviewer.util.WebClientUtil.createTranscriptionRequestBody;
+
+/**
+ * Transcribes with a self-hosted server that speaks the OpenAI transcription API, such as
+ * faster-whisper-server or the whisper.cpp server, enabled by {@code stt.local.enabled}.
+ * Meant for short clips, which it serves without using the OpenAI quota.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stt.local.enabled", havingValue = "true")
+public class LocalWhisperSpeechToTextProvider implements SpeechToTextProvider {
+
+    private final WebClient webClient;
+    private final String uri;
+    private final String model;
+    private final String apiKey;
+    private final double maxClipSeconds;
+    private final double initialRealTimeFactor;
+    private final Duration timeout;
+
+    public LocalWhisperSpeechToTextProvider(WebClient webClient,
+                                            @Value("${stt.local.uri:http://localhost:8000}") String uri,
+                                            @Value("${stt.local.model:whisper-1}") String model,
+                                            @Value("${stt.local.api-key:}") String apiKey,
+                                            @Value("${stt.local.max-clip-seconds:30}") double maxClipSeconds,
+                                            @Value("${stt.local.initial-real-time-factor:0.1}") double initialRealTimeFactor,
+                                            @Value("${stt.local.timeout:PT30S}") Duration timeout) {
+        this.webClient = webClient;
+        this.uri = uri + TRANSCRIPT_PATH;
+        this.model = model;
+        this.apiKey = apiKey;
+        this.maxClipSeconds = maxClipSeconds;
+        this.initialRealTimeFactor = initialRealTimeFactor;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public UpstreamLane getLane() {
+        return UpstreamLane.LOCAL_TRANSCRIPTION;
+    }
+
+    @Override
+    public double getMaxClipSeconds() {
+        return maxClipSeconds;
+    }
+
+    @Override
+    public double getInitialRealTimeFactor() {
+        return initialRealTimeFactor;
+    }
+
+    @Override
+    public Mono<String> transcribe(long chatId, File audio, Language language) {
+        return recordStage("stt.local", chatId, event -> {
+            event.addRequestBytes(audio.length());
+            return webClient.post()
+                    .uri(uri)
+                    .headers(headers -> {
+                        if (!apiKey.isBlank()) {
+                            headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey);
+                        }
+                    })
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .body(BodyInserters.fromMultipartData(createTranscriptionRequestBody(audio, model, language.getIso())))
+                    .retrieve()
+                    .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .map(body -> {
+                                log.error("Local transcription failed, status code: {}, body: {}",
+                                        response.statusCode(), LogRedactor.redact(body));
+                                return new SpeechToTextException("Local transcription failed: " + response.statusCode());
+                            }))
+                    .bodyToMono(WisperResponse.class)
+                    .timeout(timeout, Mono.error(() -> new SpeechToTextException("Local transcription timed out")))
+                    .mapNotNull(WisperResponse::text)
+                    .doOnNext(text -> event.addResponseBytes(utf8Size(text)));
+        }).switchIfEmpty(Mono.error(() -> new SpeechToTextException("Empty response from local transcription")));
+    }
+}
@@ -6,23 +6,33 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+import ua.ai_interviewer.dto.chatgpt.ChatGPTRequest;
 import ua.ai_interviewer.dto.chatgpt.ChatGPTResponse;
 import ua.ai_interviewer.dto.chatgpt.ChatMessage;
-import ua.ai_interviewer.dto.wisper.WisperResponse;
 import ua.ai_interviewer.enums.Language;
 import ua.ai_interviewer.enums.Role;
 import ua.ai_interviewer.exception.OpenAIRequestException;
 import ua.ai_interviewer.exception.TooManyRequestsException;
+import ua.ai_interviewer.model.Interview;
+import ua.ai_interviewer.service.CancellationToken;
+import ua.ai_interviewer.service.ChatGPTRequestEncoder;
+import ua.ai_interviewer.service.DegradationController;
 import ua.ai_interviewer.service.OpenAiService;
 import ua.ai_interviewer.util.WebClientUtil;
 
-import java.io.File;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
+import static ua.ai_interviewer.util.FlightRecorderUtil.recordStage;
+import static ua.ai_interviewer.util.FlightRecorderUtil.utf8Size;
 import static ua.ai_interviewer.util.WebClientUtil.*;
 
 @Slf4j
@@ -31,31 +41,32 @@ import static ua.ai_interviewer.util.WebClientUtil.*;
 public class OpenAiServiceImpl implements OpenAiService {
 
     private static final String EMPTY_RESPONSE_GPT = "Empty response from ChatGPT";
-    private static final String EMPTY_RESPONSE_WISPER = "Empty response from Wisper";
+    private static final String SUMMARY_PROMPT = "Summarize the earlier part of this interview so that it can "
+            + "be continued from the summary alone. Keep the questions asked, the user's answers and what is "
+            + "known about the user. Reply with the summary only, in the language of the conversation.";
     private final WebClient webClient;
+    private final ChatGPTRequestEncoder chatGPTRequestEncoder;
+    private final DegradationController degradationController;
     @Value("${chat.gpt.token}")
     private String apiToken;
+    @Value("${openai.api.uri:https://api.openai.com}")
+    private String apiUri;
 
 
-    public ChatGPTResponse getResponseFromGpt(List<ChatMessage> conversation) throws OpenAIRequestException, TooManyRequestsException {
-        var chatGPTRequest = createChatGPTRequest(conversation, false);
+    public ChatGPTResponse getResponseFromGpt(Interview interview, CancellationToken token, ContextView context)
+            throws OpenAIRequestException, TooManyRequestsException {
         log.debug("Sending POST to ChatGPT");
 
-        return performPostRequest(
-                CHAT_URI,
-                chatGPTRequest,
-                ChatGPTResponse.class,
-                EMPTY_RESPONSE_GPT,
-                MediaType.APPLICATION_JSON
-        );
-    }
-
-    public WisperResponse transcribe(File file, String language) throws OpenAIRequestException, TooManyRequestsException {
-        var body = createTranscriptionRequestBody(file, language);
-        log.debug("Sending POST to Wisper");
-
-        return performPostRequest(TRANSCRIPT_URI, body, WisperResponse.class,
-                EMPTY_RESPONSE_WISPER, MediaType.MULTIPART_FORM_DATA);
+        token.throwIfCancelled();
+        return token.bind(recordStage("chat", interview.getChatId(), event -> {
+            var chatGPTRequest = BodyInserters.fromDataBuffers(
+                    Mono.fromCallable(() -> chatGPTRequestEncoder.encode(interview, false,
+                            degradationController.getChatModel(), degradationController.getContextLimit()))
+                            .doOnNext(body -> event.addRequestBytes(body.readableByteCount())));
+            return performPostRequest(apiUri + CHAT_PATH, chatGPTRequest, ChatGPTResponse.class, MediaType.APPLICATION_JSON)
+                    .doOnNext(response -> response.getChoices()
+                            .forEach(choice -> event.addResponseBytes(utf8Size(choice.getMessage().getContent()))));
+        })).contextWrite(context).blockOptional().orElseThrow(() -> new OpenAIRequestException(EMPTY_RESPONSE_GPT));
     }
 
     public ChatMessage createMessage(String content) {
@@ -65,25 +76,40 @@ public class OpenAiServiceImpl implements OpenAiService {
                 .build();
     }
 
-    private <T> T performPostRequest(
+    public Mono<ChatGPTResponse> summarize(Long chatId, String summary, List<ChatMessage> messages) {
+        List<ChatMessage> context = new ArrayList<>(messages.size() + 2);
+        context.add(ChatMessage.builder().role(Role.SYSTEM.value).content(SUMMARY_PROMPT).build());
+        if (summary != null && !summary.isBlank()) {
+            context.add(ChatMessage.builder().role(Role.SYSTEM.value).content(summary).build());
+        }
+        context.addAll(messages);
+        ChatGPTRequest request = ChatGPTRequest.builder()
+                .model(degradationController.getChatModel().getValue())
+                .messages(context)
+                .temperature(TEMPERATURE)
+                .build();
+        return recordStage("chat.summary", chatId, event -> performPostRequest(apiUri + CHAT_PATH,
+                BodyInserters.fromValue(request), ChatGPTResponse.class, MediaType.APPLICATION_JSON)
+                .doOnNext(response -> response.getChoices()
+                        .forEach(choice -> event.addResponseBytes(utf8Size(choice.getMessage().getContent())))));
+    }
+
+    private <T> Mono<T> performPostRequest(
             String uri,
-            Object bodyValue,
+            BodyInserter<?, ? super ClientHttpRequest> body,
             Class<T> responseClass,
-            String errorMessage,
-            MediaType mediaType) throws OpenAIRequestException, TooManyRequestsException {
+            MediaType mediaType) {
         return webClient.post()
                 .uri(uri)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken)
                 .contentType(mediaType)
-                .bodyValue(bodyValue)
+                .body(body)
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, WebClientUtil::handleError)
                 .bodyToMono(responseClass)
                 .timeout(Duration.ofSeconds(120),
                         Mono.error(new OpenAIRequestException("Reached timeout of request")))
-                .retryWhen(retryAfterTooManyRequests())
-                .blockOptional()
-                .orElseThrow(() -> new OpenAIRequestException(errorMessage));
+                .retryWhen(retryAfterTooManyRequests());
     }
 
 
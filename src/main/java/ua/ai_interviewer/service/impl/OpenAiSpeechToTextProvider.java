@@ -0,0 +1,92 @@
+package ua.ai_interviewer.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.dto.wisper.WisperResponse;
+import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.enums.UpstreamLane;
+import ua.ai_interviewer.exception.OpenAIRequestException;
+import ua.ai_interviewer.service.SpeechToTextProvider;
+import ua.ai_interviewer.util.WebClientUtil;
+
+import java.io.File;
+import java.time.Duration;
+
+import static ua.ai_interviewer.util.FlightRecorderUtil.recordStage;
+import static ua.ai_interviewer.util.FlightRecorderUtil.utf8Size;
+import static ua.ai_interviewer.util.WebClientUtil.*;
+
+/**
+ * Transcribes with OpenAI Whisper, sharing the OpenAI quota with ChatGPT.
+ */
+@Slf4j
+@Service
+public class OpenAiSpeechToTextProvider implements SpeechToTextProvider {
+
+    private static final String EMPTY_RESPONSE_WISPER = "Empty response from Wisper";
+    private final WebClient webClient;
+    private final String apiToken;
+    private final String apiUri;
+    private final double maxClipSeconds;
+    private final double initialRealTimeFactor;
+
+    public OpenAiSpeechToTextProvider(WebClient webClient,
+                                      @Value("${chat.gpt.token}") String apiToken,
+                                      @Value("${openai.api.uri:https://api.openai.com}") String apiUri,
+                                      @Value("${stt.openai.max-clip-seconds:0}") double maxClipSeconds,
+                                      @Value("${stt.openai.initial-real-time-factor:0.3}") double initialRealTimeFactor) {
+        this.webClient = webClient;
+        this.apiToken = apiToken;
+        this.apiUri = apiUri;
+        this.maxClipSeconds = maxClipSeconds > 0 ? maxClipSeconds : Double.MAX_VALUE;
+        this.initialRealTimeFactor = initialRealTimeFactor;
+    }
+
+    @Override
+    public String getName() {
+        return "openai";
+    }
+
+    @Override
+    public UpstreamLane getLane() {
+        return UpstreamLane.TRANSCRIPTION;
+    }
+
+    @Override
+    public double getMaxClipSeconds() {
+        return maxClipSeconds;
+    }
+
+    @Override
+    public double getInitialRealTimeFactor() {
+        return initialRealTimeFactor;
+    }
+
+    @Override
+    public Mono<String> transcribe(long chatId, File audio, Language language) {
+        log.debug("Sending POST to Wisper");
+        return recordStage("whisper", chatId, event -> {
+            event.addRequestBytes(audio.length());
+            return webClient.post()
+                    .uri(apiUri + TRANSCRIPT_PATH)
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken)
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .body(BodyInserters.fromMultipartData(createTranscriptionRequestBody(audio, language.getIso())))
+                    .retrieve()
+                    .onStatus(HttpStatusCode::isError, WebClientUtil::handleError)
+                    .bodyToMono(WisperResponse.class)
+                    .timeout(Duration.ofSeconds(120),
+                            Mono.error(new OpenAIRequestException("Reached timeout of request")))
+                    .retryWhen(retryAfterTooManyRequests())
+                    .mapNotNull(WisperResponse::text)
+                    .doOnNext(text -> event.addResponseBytes(utf8Size(text)));
+        }).switchIfEmpty(Mono.error(() -> new OpenAIRequestException(EMPTY_RESPONSE_WISPER)));
+    }
+}
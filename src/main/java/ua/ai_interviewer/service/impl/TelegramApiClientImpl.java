@@ -0,0 +1,113 @@
+package ua.ai_interviewer.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.GetFile;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.api.objects.File;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.exception.TelegramRequestException;
+import ua.ai_interviewer.service.TelegramApiClient;
+
+import java.io.Serializable;
+
+/**
+ * Telegram Bot API client of one bot on the shared {@link WebClient}. Requests are encoded from
+ * and responses decoded into the telegrambots meta types, without holding a thread per call.
+ */
+@Slf4j
+public class TelegramApiClientImpl implements TelegramApiClient {
+
+    private static final String VOICE_FILENAME = "voice.ogg";
+    private static final MediaType VOICE_TYPE = MediaType.parseMediaType("audio/ogg");
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final String botUri;
+    private final String fileUri;
+
+    public TelegramApiClientImpl(WebClient webClient,
+                                 ObjectMapper objectMapper,
+                                 String apiUri,
+                                 String botToken) {
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.botUri = apiUri + "/bot" + botToken + "/";
+        this.fileUri = apiUri + "/file/bot" + botToken + "/";
+    }
+
+    @Override
+    public <T extends Serializable> Mono<T> execute(BotApiMethod<T> method) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(method))
+                .flatMap(body -> webClient.post()
+                        .uri(botUri + method.getMethod())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(body)
+                        .exchangeToMono(response -> response.bodyToMono(String.class)))
+                .map(answer -> {
+                    try {
+                        return method.deserializeResponse(answer);
+                    } catch (TelegramApiRequestException e) {
+                        throw new TelegramRequestException("Telegram method " + method.getMethod() + " failed", e);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Message> sendVoice(Long chatId, Integer replyToMessageId, Flux<DataBuffer> voice) {
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("chat_id", chatId.toString());
+        if (replyToMessageId != null) {
+            builder.part("reply_to_message_id", replyToMessageId.toString());
+        }
+        builder.asyncPart("voice", voice, DataBuffer.class).filename(VOICE_FILENAME).contentType(VOICE_TYPE);
+
+        return webClient.post()
+                .uri(botUri + "sendVoice")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(builder.build()))
+                .exchangeToMono(response -> response.bodyToMono(String.class))
+                .map(answer -> deserialize(answer, new TypeReference<ApiResponse<Message>>() {
+                }, "sendVoice"));
+    }
+
+    @Override
+    public Mono<File> getFile(String fileId) {
+        GetFile getFile = new GetFile();
+        getFile.setFileId(fileId);
+        return execute(getFile);
+    }
+
+    @Override
+    public Flux<DataBuffer> downloadFile(String filePath) {
+        return webClient.get()
+                .uri(fileUri + filePath)
+                .exchangeToFlux(response -> response.statusCode().isError()
+                        ? response.<DataBuffer>createError().flux()
+                        : response.body(BodyExtractors.toDataBuffers()));
+    }
+
+    private <T extends Serializable> T deserialize(String answer, TypeReference<ApiResponse<T>> type, String method) {
+        try {
+            ApiResponse<T> response = objectMapper.readValue(answer, type);
+            if (Boolean.TRUE.equals(response.getOk())) {
+                return response.getResult();
+            }
+            throw new TelegramRequestException("Telegram method " + method + " failed",
+                    new TelegramApiRequestException("Error " + response.getErrorCode(), response));
+        } catch (JsonProcessingException e) {
+            throw new TelegramRequestException("Unable to deserialize response of " + method, e);
+        }
+    }
+}
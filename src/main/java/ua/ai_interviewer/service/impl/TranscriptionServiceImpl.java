@@ -0,0 +1,76 @@
+package ua.ai_interviewer.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.converter.VoicePreprocessor;
+import ua.ai_interviewer.dto.audio.TrimmedAudio;
+import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.service.CancellationToken;
+import ua.ai_interviewer.service.DegradationController;
+import ua.ai_interviewer.service.SpeechToTextRouter;
+import ua.ai_interviewer.service.TranscriptionService;
+import ua.ai_interviewer.service.UpstreamGovernor;
+import ua.ai_interviewer.service.UsageService;
+import ua.ai_interviewer.util.TranscriptUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TranscriptionServiceImpl implements TranscriptionService {
+
+    private final SpeechToTextRouter speechToTextRouter;
+    private final VoicePreprocessor voicePreprocessor;
+    private final UpstreamGovernor upstreamGovernor;
+    private final UsageService usageService;
+    private final DegradationController degradationController;
+    @Value("${transcription.segmented.min-duration-seconds:120}")
+    private int segmentedMinDurationSeconds;
+
+
+    @Override
+    public Mono<String> transcribe(String bot, Long chatId, File voice, String name, int durationSeconds,
+                                   Language language, CancellationToken token) {
+        double weight = usageService.getWeight(chatId);
+        if (durationSeconds < segmentedMinDurationSeconds) {
+            return token.bind(Mono.usingWhen(
+                    voicePreprocessor.trimSilence(voice, name, degradationController.getAudioProfile(), token),
+                    trimmed -> transcribeFile(bot, chatId, trimmed, weight, language),
+                    trimmed -> Mono.fromRunnable(() -> safeDelete(trimmed.file()))));
+        }
+
+        return token.bind(Mono.usingWhen(
+                voicePreprocessor.splitAtSilence(voice, name, token),
+                chunks -> {
+                    log.debug("Transcribing voice {} of {}s in {} segments", name, durationSeconds, chunks.size());
+                    return Flux.fromIterable(chunks)
+                            .flatMapSequential(chunk -> transcribeFile(bot, chatId, chunk, weight, language),
+                                    chunks.size())
+                            .collectList()
+                            .map(TranscriptUtil::mergeOverlapping);
+                },
+                chunks -> Mono.fromRunnable(() -> chunks.forEach(chunk -> safeDelete(chunk.file())))));
+    }
+
+    private Mono<String> transcribeFile(String bot, Long chatId, TrimmedAudio audio, double weight, Language language) {
+        return speechToTextRouter.transcribe(audio.speechSeconds(),
+                provider -> provider.transcribe(chatId, audio.file(), language),
+                (provider, call) -> upstreamGovernor.withPermit(provider.getLane(), bot, chatId,
+                        audio.speechSeconds(), weight, call));
+    }
+
+    private void safeDelete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            log.error("Error during deleting file", e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ua.ai_interviewer.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ua.ai_interviewer.dto.chatgpt.Usage;
+import ua.ai_interviewer.model.ChatUsage;
+import ua.ai_interviewer.service.UsageService;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Counts tokens and audio seconds per chat and UTC day in memory and adds the counts to
+ * Mongo periodically, so recording usage never waits for the database. Today's usage
+ * for quota checks is the stored total, read once per chat and day, plus what this
+ * instance counted since.
+ */
+@Slf4j
+@Service
+public class UsageServiceImpl implements UsageService {
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, DailyCounter> counters = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final long dailyTokens;
+    private final long dailyAudioSeconds;
+
+    public UsageServiceImpl(MongoTemplate mongoTemplate,
+                            @Value("${usage.quota.daily-tokens:200000}") long dailyTokens,
+                            @Value("${usage.quota.daily-audio-seconds:3600}") long dailyAudioSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.dailyTokens = dailyTokens;
+        this.dailyAudioSeconds = dailyAudioSeconds;
+    }
+
+    @Override
+    public void recordTokens(Long chatId, Usage usage) {
+        DailyCounter counter = today(chatId);
+        counter.promptTokens.addAndGet(usage.promptTokens());
+        counter.completionTokens.addAndGet(usage.completionTokens());
+    }
+
+    @Override
+    public void recordAudio(Long chatId, int seconds) {
+        today(chatId).audioSeconds.addAndGet(seconds);
+    }
+
+    @Override
+    public boolean isOverDailyQuota(Long chatId) {
+        DailyCounter counter = loaded(today(chatId));
+        return dailyTokens > 0 && counter.tokens() >= dailyTokens
+                || dailyAudioSeconds > 0 && counter.audioSeconds() >= dailyAudioSeconds;
+    }
+
+    @Override
+    public double getWeight(Long chatId) {
+        if (dailyTokens <= 0) {
+            return 1;
+        }
+        DailyCounter counter = counters.get(DailyCounter.id(chatId, LocalDate.now(ZoneOffset.UTC)));
+        return counter == null ? 1 : 1 / (1 + (double) counter.tokens() / dailyTokens);
+    }
+
+    /**
+     * Counts are taken out of the counters only once the write succeeded, so a failed flush
+     * leaves them to the next one. The flush lock keeps {@link #loaded} from reading a stored
+     * total that a write in progress may or may not have updated yet.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${usage.flush-interval:PT30S}")
+    public int flush() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        synchronized (flushLock) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatUsage.class);
+            List<Flushed> flushed = new ArrayList<>();
+            for (DailyCounter counter : counters.values()) {
+                Flushed delta = new Flushed(counter, counter.promptTokens.get(), counter.completionTokens.get(),
+                        counter.audioSeconds.get());
+                if (delta.prompt != 0 || delta.completion != 0 || delta.audio != 0) {
+                    bulk.upsert(query(where("_id").is(counter.id)), new Update()
+                            .setOnInsert("chatId", counter.chatId)
+                            .setOnInsert("day", counter.day.toString())
+                            .inc("promptTokens", delta.prompt)
+                            .inc("completionTokens", delta.completion)
+                            .inc("audioSeconds", delta.audio));
+                    flushed.add(delta);
+                }
+            }
+            if (!flushed.isEmpty()) {
+                bulk.execute();
+                flushed.forEach(Flushed::commit);
+                log.debug("Flushed usage of {} chats", flushed.size());
+            }
+            counters.values().removeIf(counter -> counter.day.isBefore(today) && counter.isFlushed());
+            return flushed.size();
+        }
+    }
+
+    @PreDestroy
+    private void flushOnShutdown() {
+        flush();
+    }
+
+    private DailyCounter today(Long chatId) {
+        LocalDate day = LocalDate.now(ZoneOffset.UTC);
+        return counters.computeIfAbsent(DailyCounter.id(chatId, day), id -> new DailyCounter(id, chatId, day));
+    }
+
+    private DailyCounter loaded(DailyCounter counter) {
+        if (!counter.loaded) {
+            synchronized (counter) {
+                if (!counter.loaded) {
+                    synchronized (flushLock) {
+                        ChatUsage stored = mongoTemplate.findById(counter.id, ChatUsage.class);
+                        if (stored != null) {
+                            // the stored total already includes what this counter flushed
+                            counter.baseTokens = stored.getTokens() - counter.flushedTokens.get();
+                            counter.baseAudioSeconds = stored.getAudioSeconds() - counter.flushedAudioSeconds.get();
+                        }
+                    }
+                    counter.loaded = true;
+                }
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Counts written by a flush. They are moved to the flushed totals before they leave the
+     * pending ones, so the day's usage is never undercounted in between.
+     */
+    private record Flushed(DailyCounter counter, long prompt, long completion, long audio) {
+
+        private void commit() {
+            counter.flushedTokens.addAndGet(prompt + completion);
+            counter.flushedAudioSeconds.addAndGet(audio);
+            counter.promptTokens.addAndGet(-prompt);
+            counter.completionTokens.addAndGet(-completion);
+            counter.audioSeconds.addAndGet(-audio);
+        }
+    }
+
+    private static final class DailyCounter {
+
+        private final String id;
+        private final Long chatId;
+        private final LocalDate day;
+        private final AtomicLong promptTokens = new AtomicLong();
+        private final AtomicLong completionTokens = new AtomicLong();
+        private final AtomicLong audioSeconds = new AtomicLong();
+        private final AtomicLong flushedTokens = new AtomicLong();
+        private final AtomicLong flushedAudioSeconds = new AtomicLong();
+        private volatile long baseTokens;
+        private volatile long baseAudioSeconds;
+        private volatile boolean loaded;
+
+        private DailyCounter(String id, Long chatId, LocalDate day) {
+            this.id = id;
+            this.chatId = chatId;
+            this.day = day;
+        }
+
+        private static String id(Long chatId, LocalDate day) {
+            return chatId + ":" + day;
+        }
+
+        private long tokens() {
+            return baseTokens + flushedTokens.get() + promptTokens.get() + completionTokens.get();
+        }
+
+        private long audioSeconds() {
+            return baseAudioSeconds + flushedAudioSeconds.get() + audioSeconds.get();
+        }
+
+        private boolean isFlushed() {
+            return promptTokens.get() == 0 && completionTokens.get() == 0 && audioSeconds.get() == 0;
+        }
+    }
+}
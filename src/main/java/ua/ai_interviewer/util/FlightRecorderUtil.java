@@ -0,0 +1,110 @@
+package ua.ai_interviewer.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.ContextView;
+import ua.ai_interviewer.dto.telegram.TurnProgress;
+import ua.ai_interviewer.dto.telegram.TurnSummary;
+import ua.ai_interviewer.jfr.StageEvent;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Utility class for recording reactive stages as JDK Flight Recorder events.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FlightRecorderUtil {
+
+    /**
+     * Records a {@link StageEvent} spanning from subscription to termination of the stage,
+     * and adds the stage to the {@link TurnSummary} and {@link TurnProgress} of the subscriber
+     * context, if any.
+     *
+     * @param stage  The stage name.
+     * @param chatId The chat the stage belongs to, or 0 when unknown.
+     * @param source Creates the stage; may add payload sizes to the event.
+     * @return The recorded stage.
+     */
+    public static <T> Mono<T> recordStage(String stage, long chatId, Function<StageEvent, Mono<T>> source) {
+        return Mono.deferContextual(context -> {
+            StageEvent event = StageEvent.start(stage, chatId);
+            started(event, context);
+            return source.apply(event)
+                    .doOnError(e -> event.fail())
+                    .doFinally(finish(stage, event, context));
+        });
+    }
+
+    /**
+     * Records a {@link StageEvent} spanning from subscription to termination of a streamed stage,
+     * and adds the stage to the {@link TurnSummary} and {@link TurnProgress} of the subscriber
+     * context, if any.
+     *
+     * @param stage  The stage name.
+     * @param chatId The chat the stage belongs to, or 0 when unknown.
+     * @param source Creates the stage; may add payload sizes to the event.
+     * @return The recorded stage.
+     */
+    public static <T> Flux<T> recordStreamStage(String stage, long chatId, Function<StageEvent, Flux<T>> source) {
+        return Flux.deferContextual(context -> {
+            StageEvent event = StageEvent.start(stage, chatId);
+            started(event, context);
+            return source.apply(event)
+                    .doOnError(e -> event.fail())
+                    .doFinally(finish(stage, event, context));
+        });
+    }
+
+    private static void started(StageEvent event, ContextView context) {
+        TurnProgress progress = context.getOrDefault(TurnProgress.class, null);
+        if (progress != null) {
+            progress.stageStarted(event);
+        }
+    }
+
+    private static Consumer<SignalType> finish(String stage, StageEvent event, ContextView context) {
+        long started = System.nanoTime();
+        TurnSummary summary = context.getOrDefault(TurnSummary.class, null);
+        TurnProgress progress = context.getOrDefault(TurnProgress.class, null);
+        return signal -> {
+            event.commit();
+            if (progress != null) {
+                progress.stageFinished(event);
+            }
+            if (summary != null) {
+                summary.addStage(stage, System.nanoTime() - started, signal == SignalType.ON_ERROR);
+            }
+        };
+    }
+
+    /**
+     * Returns the UTF-8 size of a text payload.
+     *
+     * @param text The text, may be null.
+     * @return The size in bytes.
+     */
+    public static long utf8Size(String text) {
+        if (text == null) {
+            return 0;
+        }
+        long size = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                size++;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                size += 4;
+                i++;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+}
@@ -7,11 +7,8 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ua.ai_interviewer.enums.Language;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.time.LocalTime;
+import java.nio.ByteBuffer;
 
 /**
  * Utility class for processing text-to-speech queries via Google Text-to-Speech API.
@@ -21,14 +18,14 @@ import java.time.LocalTime;
 public final class GoogleUtil {
 
     /**
-     * Converts text to speech, and saves the audio to a file.
+     * Converts text to speech.
      *
      * @param text     The text to be converted.
      * @param language The language of the text.
-     * @return The file with the audio content.
+     * @return The OGG Opus audio content, a read-only view of the response without a copy.
      * @throws IOException If an I/O error occurs.
      */
-    public static File textToFile(String text, Language language) throws IOException {
+    public static ByteBuffer textToSpeech(String text, Language language) throws IOException {
         log.debug("started call to google api");
         try (TextToSpeechClient textToSpeechClient = TextToSpeechClient.create()) {
             SynthesisInput input = SynthesisInput.newBuilder().setText(text).build();
@@ -46,17 +43,9 @@ public final class GoogleUtil {
                     textToSpeechClient.synthesizeSpeech(input, voice, audioConfig);
             log.debug("Successful got response");
             ByteString audioContents = response.getAudioContent();
+            log.debug("Audio content of {} bytes", audioContents.size());
 
-            int nano = LocalTime.now().getNano();
-            int hash = text.hashCode();
-            File file = new File(hash - nano + ".ogg");
-            log.debug("try to save in file");
-            try (OutputStream out = new FileOutputStream(file)) {
-                out.write(audioContents.toByteArray());
-                log.debug("Audio content written to file {}", file.getName());
-
-            }
-            return file;
+            return audioContents.asReadOnlyByteBuffer();
         }
     }
 
@@ -0,0 +1,73 @@
+package ua.ai_interviewer.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for making user content and upstream payloads safe to log:
+ * credentials and personal data are masked and the text is truncated.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LogRedactor {
+
+    public static final int DEFAULT_MAX_LENGTH = 200;
+    private static final Pattern SECRET = Pattern.compile(
+            "\\b\\d{6,12}:[A-Za-z0-9_-]{30,}\\b|\\bsk-[A-Za-z0-9_-]{16,}|(?i)bearer\\s+[A-Za-z0-9._~+/-]+=*");
+    private static final Pattern EMAIL = Pattern.compile("[\\w.+-]+@[\\w-]+(\\.[\\w-]+)+");
+    private static final Pattern PHONE_OR_NUMBER = Pattern.compile("\\+?\\d[\\d ()-]{7,}\\d");
+
+    /**
+     * Masks secrets, e-mail addresses and phone or card numbers and truncates the text
+     * to {@link #DEFAULT_MAX_LENGTH} characters.
+     *
+     * @param text The text to log, may be null.
+     * @return The redacted text.
+     */
+    public static String redact(String text) {
+        return redact(text, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Masks secrets, e-mail addresses and phone or card numbers and truncates the text.
+     *
+     * @param text      The text to log, may be null.
+     * @param maxLength The number of characters to keep.
+     * @return The redacted text.
+     */
+    public static String redact(String text, int maxLength) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() <= maxLength) {
+            return mask(text);
+        }
+        String masked = mask(text.substring(0, cut(text, maxLength)));
+        if (masked.length() > maxLength) {
+            masked = masked.substring(0, maxLength);
+        }
+        return masked + "…(" + text.length() + " chars)";
+    }
+
+    private static String mask(String text) {
+        String masked = SECRET.matcher(text).replaceAll("<secret>");
+        masked = EMAIL.matcher(masked).replaceAll("<email>");
+        return PHONE_OR_NUMBER.matcher(masked).replaceAll("<number>");
+    }
+
+    /**
+     * The end of the part of the text to mask. The cut is moved past the word it falls in, and
+     * past further groups of a number written with spaces, since part of a secret, an address
+     * or a number would not be recognised; it is moved by up to {@code maxLength} characters.
+     */
+    private static int cut(String text, int maxLength) {
+        int limit = Math.min(text.length(), maxLength * 2);
+        int end = maxLength;
+        while (end < limit && (!Character.isWhitespace(text.charAt(end))
+                || end + 1 < limit && (Character.isDigit(text.charAt(end + 1)) || text.charAt(end + 1) == '('))) {
+            end++;
+        }
+        return end;
+    }
+}
\ No newline at end of file
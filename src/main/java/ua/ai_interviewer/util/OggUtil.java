@@ -0,0 +1,223 @@
+package ua.ai_interviewer.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ua.ai_interviewer.dto.audio.OggPacket;
+import ua.ai_interviewer.dto.audio.OggStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for reading and writing the packets of OGG files (RFC 3533).
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class OggUtil {
+
+    private static final int CAPTURE_PATTERN = 0x5367674F; // "OggS"
+    private static final int HEADER_SIZE = 27;
+    private static final int MAX_SEGMENTS = 255;
+    private static final int CONTINUED = 0x01;
+    private static final int FIRST_PAGE = 0x02;
+    private static final int LAST_PAGE = 0x04;
+    private static final int[] CRC_TABLE = crcTable();
+
+    /**
+     * Reads the packets of the first logical stream; pages of other streams are skipped.
+     * Packets within a page are read-only views of the content, so they are valid only as
+     * long as it is; only packets continued across pages are copied together.
+     *
+     * @param ogg  The file content.
+     * @param name The name of the file, for error messages.
+     * @return The packets in order.
+     * @throws IOException If the content is not OGG, is damaged or ends within a packet.
+     */
+    public static OggStream readPackets(ByteBuffer ogg, String name) throws IOException {
+        ByteBuffer buffer = ogg.slice().order(ByteOrder.LITTLE_ENDIAN);
+        List<ByteBuffer> packets = new ArrayList<>();
+        List<ByteBuffer> partial = new ArrayList<>();
+        Integer serial = null;
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            if (buffer.getInt(start) != CAPTURE_PATTERN || buffer.get(start + 4) != 0) {
+                throw new IOException("Not an OGG page at offset " + start + " of " + name);
+            }
+            int type = buffer.get(start + 5);
+            int pageSerial = buffer.getInt(start + 14);
+            int segments = buffer.get(start + 26) & 0xFF;
+            int bodySize = 0;
+            for (int i = 0; i < segments && start + HEADER_SIZE + i < buffer.limit(); i++) {
+                bodySize += buffer.get(start + HEADER_SIZE + i) & 0xFF;
+            }
+            int end = start + HEADER_SIZE + segments + bodySize;
+            if (end > buffer.limit()) {
+                throw new IOException("Truncated OGG page at offset " + start + " of " + name);
+            }
+            if (crc(buffer, start, end) != buffer.getInt(start + 22)) {
+                throw new IOException("Damaged OGG page at offset " + start + " of " + name);
+            }
+            if (serial == null) {
+                serial = pageSerial;
+            }
+            if (pageSerial == serial) {
+                if ((type & CONTINUED) == 0 && !partial.isEmpty()) {
+                    throw new IOException("Packet of " + name + " is missing its continuation");
+                }
+                int packetStart = start + HEADER_SIZE + segments;
+                int offset = packetStart;
+                for (int i = 0; i < segments; i++) {
+                    int size = buffer.get(start + HEADER_SIZE + i) & 0xFF;
+                    offset += size;
+                    if (size < 255) {
+                        ByteBuffer packet = buffer.slice(packetStart, offset - packetStart).asReadOnlyBuffer();
+                        if (partial.isEmpty()) {
+                            packets.add(packet);
+                        } else {
+                            partial.add(packet);
+                            packets.add(join(partial));
+                            partial.clear();
+                        }
+                        packetStart = offset;
+                    }
+                }
+                if (packetStart < offset) {
+                    // the page ends with a 255-byte segment, the packet goes on on the next page
+                    partial.add(buffer.slice(packetStart, offset - packetStart));
+                }
+            }
+            buffer.position(end);
+        }
+        if (serial == null) {
+            throw new IOException("No OGG pages in " + name);
+        }
+        if (!partial.isEmpty()) {
+            throw new IOException("OGG file " + name + " ends within a packet");
+        }
+        return new OggStream(serial, packets);
+    }
+
+    /**
+     * Writes a single logical stream. Every header packet gets pages of its own, as codecs
+     * require of their identification and comment headers; the other packets are packed
+     * into pages of up to 255 segments.
+     *
+     * @param target  The file to write.
+     * @param serial  The serial number of the stream.
+     * @param headers The header packets.
+     * @param packets The data packets with their granule positions.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writePackets(File target, int serial, List<ByteBuffer> headers, List<OggPacket> packets)
+            throws IOException {
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            PageWriter writer = new PageWriter(out, serial);
+            for (ByteBuffer header : headers) {
+                writer.add(header, 0);
+                writer.flush(false);
+            }
+            for (OggPacket packet : packets) {
+                writer.add(packet.data(), packet.granule());
+            }
+            writer.flush(true);
+        }
+    }
+
+    private static ByteBuffer join(List<ByteBuffer> pieces) {
+        ByteBuffer packet = ByteBuffer.allocate(pieces.stream().mapToInt(ByteBuffer::remaining).sum());
+        pieces.forEach(piece -> packet.put(piece.duplicate()));
+        return packet.flip().asReadOnlyBuffer();
+    }
+
+    /**
+     * The page checksum, computed with the checksum field taken as zero.
+     */
+    private static int crc(ByteBuffer page, int start, int end) {
+        int crc = 0;
+        for (int i = start; i < end; i++) {
+            int b = i >= start + 22 && i < start + 26 ? 0 : page.get(i) & 0xFF;
+            crc = (crc << 8) ^ CRC_TABLE[((crc >>> 24) ^ b) & 0xFF];
+        }
+        return crc;
+    }
+
+    private static int[] crcTable() {
+        int[] table = new int[256];
+        for (int i = 0; i < table.length; i++) {
+            int r = i << 24;
+            for (int bit = 0; bit < 8; bit++) {
+                r = (r & 0x80000000) != 0 ? (r << 1) ^ 0x04C11DB7 : r << 1;
+            }
+            table[i] = r;
+        }
+        return table;
+    }
+
+    private static final class PageWriter {
+
+        private final FileChannel out;
+        private final int serial;
+        private final ByteBuffer page = ByteBuffer.allocate(HEADER_SIZE + MAX_SEGMENTS + MAX_SEGMENTS * 255)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer body = ByteBuffer.allocate(MAX_SEGMENTS * 255);
+        private final byte[] lacing = new byte[MAX_SEGMENTS];
+        private int segments;
+        private int sequence;
+        private long granule = -1;
+        private long lastGranule;
+        private boolean continued;
+
+        private PageWriter(FileChannel out, int serial) {
+            this.out = out;
+            this.serial = serial;
+        }
+
+        /**
+         * A packet is a run of 255-byte segments ended by a shorter one, possibly of 0 bytes.
+         * A packet that does not fit is continued on the next page.
+         */
+        private void add(ByteBuffer packet, long packetGranule) throws IOException {
+            int offset = 0;
+            while (true) {
+                if (segments == MAX_SEGMENTS) {
+                    flush(false);
+                    continued = offset > 0;
+                }
+                int size = Math.min(255, packet.remaining() - offset);
+                lacing[segments++] = (byte) size;
+                body.put(packet.slice(packet.position() + offset, size));
+                offset += size;
+                if (size < 255) {
+                    break;
+                }
+            }
+            granule = packetGranule;
+            lastGranule = packetGranule;
+        }
+
+        private void flush(boolean last) throws IOException {
+            if (segments == 0 && !last) {
+                return;
+            }
+            page.clear().putInt(CAPTURE_PATTERN).put((byte) 0)
+                    .put((byte) ((continued ? CONTINUED : 0) | (sequence == 0 ? FIRST_PAGE : 0) | (last ? LAST_PAGE : 0)))
+                    .putLong(segments == 0 ? lastGranule : granule).putInt(serial).putInt(sequence++).putInt(0)
+                    .put((byte) segments).put(lacing, 0, segments).put(body.flip());
+            page.putInt(22, crc(page, 0, page.position()));
+            page.flip();
+            while (page.hasRemaining()) {
+                out.write(page);
+            }
+            body.clear();
+            segments = 0;
+            granule = -1;
+            continued = false;
+        }
+    }
+}
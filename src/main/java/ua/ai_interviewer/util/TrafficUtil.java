@@ -0,0 +1,47 @@
+package ua.ai_interviewer.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ua.ai_interviewer.dto.traffic.TrafficRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Utility class for reading traffic recordings, gzipped files of one JSON {@link TrafficRecord} per line.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TrafficUtil {
+
+    /**
+     * Reads a traffic recording.
+     *
+     * @param file         The recording file.
+     * @param objectMapper The mapper to parse the lines with.
+     * @return The records ordered by time.
+     * @throws IOException If the file cannot be read.
+     */
+    public static List<TrafficRecord> read(Path file, ObjectMapper objectMapper) throws IOException {
+        List<TrafficRecord> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    records.add(objectMapper.readValue(line, TrafficRecord.class));
+                }
+            }
+        }
+        records.sort(Comparator.comparingLong(TrafficRecord::at));
+        return records;
+    }
+}
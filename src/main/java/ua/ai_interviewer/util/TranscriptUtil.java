@@ -0,0 +1,63 @@
+package ua.ai_interviewer.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Utility class for joining transcripts of overlapping audio chunks.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TranscriptUtil {
+
+    private static final int MAX_OVERLAP_WORDS = 20;
+    private static final int MIN_OVERLAP_WORDS = 2;
+
+    /**
+     * Joins chunk transcripts in order, dropping the words at the start of a chunk
+     * that repeat the end of the previous one.
+     *
+     * @param transcripts The transcripts of consecutive chunks.
+     * @return The joined transcript.
+     */
+    public static String mergeOverlapping(List<String> transcripts) {
+        StringBuilder merged = new StringBuilder();
+        String[] previous = new String[0];
+        for (String transcript : transcripts) {
+            String text = transcript == null ? "" : transcript.strip();
+            if (text.isEmpty()) {
+                continue;
+            }
+            String[] next = text.split("\\s+");
+            int skip = overlap(previous, next);
+            for (int i = skip; i < next.length; i++) {
+                if (!merged.isEmpty()) {
+                    merged.append(' ');
+                }
+                merged.append(next[i]);
+            }
+            previous = next;
+        }
+        return merged.toString();
+    }
+
+    private static int overlap(String[] previous, String[] next) {
+        int max = Math.min(MAX_OVERLAP_WORDS, Math.min(previous.length, next.length));
+        for (int size = max; size >= MIN_OVERLAP_WORDS; size--) {
+            boolean matches = true;
+            for (int i = 0; i < size && matches; i++) {
+                matches = normalize(previous[previous.length - size + i]).equals(normalize(next[i]));
+            }
+            if (matches) {
+                return size;
+            }
+        }
+        return 0;
+    }
+
+    private static String normalize(String word) {
+        return word.replaceAll("[\\p{Punct}«»…]", "").toLowerCase(Locale.ROOT);
+    }
+}
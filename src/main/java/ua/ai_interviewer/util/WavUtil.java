@@ -0,0 +1,116 @@
+package ua.ai_interviewer.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ua.ai_interviewer.dto.audio.AudioSegment;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Utility class for reading and writing 16-bit mono PCM WAV files.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class WavUtil {
+
+    private static final int HEADER_SIZE = 44;
+    private static final short PCM_FORMAT = 1;
+    private static final short BITS_PER_SAMPLE = 16;
+
+    /**
+     * Locates the samples of an in-memory 16-bit mono PCM WAV file without copying them.
+     *
+     * @param wav  The WAV file content.
+     * @param name The name of the file, for error messages.
+     * @return A little-endian view of the data chunk, sharing the content.
+     * @throws IOException If the content is not 16-bit mono PCM.
+     */
+    public static ByteBuffer pcm16Data(ByteBuffer wav, String name) throws IOException {
+        ByteBuffer buffer = wav.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 12 || buffer.getInt(0) != 0x46464952 || buffer.getInt(8) != 0x45564157) {
+            throw new IOException("Not a RIFF/WAVE file: " + name);
+        }
+        buffer.position(12);
+        boolean formatChecked = false;
+        while (buffer.remaining() >= 8) {
+            int chunkId = buffer.getInt();
+            int chunkSize = buffer.getInt();
+            int chunkStart = buffer.position();
+            if (chunkId == 0x20746d66) { // "fmt "
+                short format = buffer.getShort(chunkStart);
+                short channels = buffer.getShort(chunkStart + 2);
+                short bits = buffer.getShort(chunkStart + 14);
+                if (format != PCM_FORMAT || channels != 1 || bits != BITS_PER_SAMPLE) {
+                    throw new IOException("Unsupported WAV format " + format + ", channels " + channels + ", bits " + bits);
+                }
+                formatChecked = true;
+            } else if (chunkId == 0x61746164) { // "data"
+                if (!formatChecked) {
+                    throw new IOException("WAV data chunk precedes fmt chunk: " + name);
+                }
+                int size = Math.min(chunkSize, buffer.remaining()) & ~1;
+                return buffer.slice(chunkStart, size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            buffer.position(Math.min(buffer.limit(), chunkStart + chunkSize + (chunkSize & 1)));
+        }
+        throw new IOException("WAV file has no data chunk: " + name);
+    }
+
+    /**
+     * Writes the given segments of the samples, in order, to a 16-bit mono PCM WAV file.
+     *
+     * The ranges are written straight from the source memory.
+     *
+     * @param target     The file to write.
+     * @param data       The source samples, as returned by {@link #pcm16Data}.
+     * @param segments   The sample ranges to keep.
+     * @param sampleRate The sample rate of the samples.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writePcm16(File target, ByteBuffer data, List<AudioSegment> segments, int sampleRate)
+            throws IOException {
+        int total = segments.stream().mapToInt(AudioSegment::length).sum();
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, header(total, sampleRate).flip());
+            for (AudioSegment segment : segments) {
+                writeFully(out, data.slice(segment.startSample() * 2, segment.length() * 2));
+            }
+        }
+    }
+
+    /**
+     * Encodes samples as an in-memory 16-bit mono PCM WAV file.
+     *
+     * @param samples    The samples.
+     * @param sampleRate The sample rate of the samples.
+     * @return The WAV file content.
+     */
+    public static byte[] encodePcm16(short[] samples, int sampleRate) {
+        ByteBuffer wav = ByteBuffer.allocate(HEADER_SIZE + samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put(header(samples.length, sampleRate).array());
+        for (short sample : samples) {
+            wav.putShort(sample);
+        }
+        return wav.array();
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            out.write(source);
+        }
+    }
+
+    private static ByteBuffer header(int samples, int sampleRate) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        return header.putInt(0x46464952).putInt(36 + samples * 2).putInt(0x45564157)
+                .putInt(0x20746d66).putInt(16).putShort(PCM_FORMAT).putShort((short) 1)
+                .putInt(sampleRate).putInt(sampleRate * 2).putShort((short) 2).putShort(BITS_PER_SAMPLE)
+                .putInt(0x61746164).putInt(samples * 2);
+    }
+}
@@ -0,0 +1,170 @@
+package ua.ai_interviewer.converter;
+
+import org.junit.jupiter.api.Test;
+import ua.ai_interviewer.dto.audio.AudioSegment;
+import ua.ai_interviewer.dto.audio.OggStream;
+import ua.ai_interviewer.service.AudioBufferManager;
+import ua.ai_interviewer.service.CancellationToken;
+import ua.ai_interviewer.util.OggUtil;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OggOpusDecoderTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    // the fixture holds 80 packets of 20 ms: 0.4 s of silence, 0.8 s of tone and 0.4 s of silence
+    private static final int FIXTURE_PACKETS = 80;
+    private static final int PACKET_SAMPLES = 960;
+    private static final int PCM_PACKET_SAMPLES = 320;
+
+    private final AudioBufferManager audioBufferManager = new AudioBufferManager(1 << 20, 300);
+    private final OggOpusDecoder decoder = new OggOpusDecoder(audioBufferManager, true);
+
+    @Test
+    void packetDurationFollowsTheTableOfContents() {
+        // SILK-only, 10, 20, 40 and 60 ms
+        assertEquals(480, OggOpusDecoder.packetSamples(packet(0, 0)));
+        assertEquals(960, OggOpusDecoder.packetSamples(packet(1, 0)));
+        assertEquals(1920, OggOpusDecoder.packetSamples(packet(2, 0)));
+        assertEquals(2880, OggOpusDecoder.packetSamples(packet(11, 0)));
+        // hybrid, 10 and 20 ms
+        assertEquals(480, OggOpusDecoder.packetSamples(packet(12, 0)));
+        assertEquals(960, OggOpusDecoder.packetSamples(packet(15, 0)));
+        // CELT-only, 2.5, 5, 10 and 20 ms
+        assertEquals(120, OggOpusDecoder.packetSamples(packet(16, 0)));
+        assertEquals(240, OggOpusDecoder.packetSamples(packet(17, 0)));
+        assertEquals(480, OggOpusDecoder.packetSamples(packet(30, 0)));
+        assertEquals(960, OggOpusDecoder.packetSamples(packet(31, 0)));
+        // two frames of equal or different sizes, then an arbitrary count
+        assertEquals(1920, OggOpusDecoder.packetSamples(packet(1, 1)));
+        assertEquals(1920, OggOpusDecoder.packetSamples(packet(1, 2)));
+        assertEquals(5 * 960, OggOpusDecoder.packetSamples(packet(1, 3, 5)));
+        assertEquals(0, OggOpusDecoder.packetSamples(packet(1, 3)));
+        assertEquals(0, OggOpusDecoder.packetSamples(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    void onlySingleStreamMonoAndStereoAreDecoded() {
+        assertTrue(OggOpusDecoder.isSingleStream(head(1, 0, 0, 0)));
+        assertTrue(OggOpusDecoder.isSingleStream(head(2, 0, 0, 0)));
+        assertTrue(OggOpusDecoder.isSingleStream(head(2, 1, 1, 1)));
+        assertFalse(OggOpusDecoder.isSingleStream(head(0, 0, 0, 0)));
+        assertFalse(OggOpusDecoder.isSingleStream(head(3, 0, 0, 0)));
+        assertFalse(OggOpusDecoder.isSingleStream(head(2, 1, 2, 0)));
+        assertFalse(OggOpusDecoder.isSingleStream(head(1, 255, 1, 0)));
+    }
+
+    @Test
+    void decodedVoiceIsWrittenBackPacketForPacket() throws Exception {
+        File source = fixture();
+        OggStream original = OggUtil.readPackets(ByteBuffer.wrap(Files.readAllBytes(source.toPath())), "voice.opus");
+        File target = Files.createTempFile("voice", ".opus").toFile();
+        try (DecodedOpus decoded = decoder.decode(source, new CancellationToken()).block(TIMEOUT)) {
+            assertNotNull(decoded);
+            int samples = decoded.samples().remaining();
+            assertEquals(FIXTURE_PACKETS * PCM_PACKET_SAMPLES, samples);
+
+            decoded.writeOgg(target, List.of(new AudioSegment(0, samples)));
+            ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(target.toPath()));
+            OggStream reread = OggUtil.readPackets(written, target.getName());
+
+            assertEquals(original.serial(), reread.serial());
+            assertEquals(original.packets(), reread.packets());
+            assertEquals(preSkip(original) + (long) FIXTURE_PACKETS * PACKET_SAMPLES, lastGranule(written));
+        } finally {
+            Files.delete(target.toPath());
+        }
+        assertEquals(0, audioBufferManager.getStatus().reservedBytes());
+    }
+
+    @Test
+    void segmentsKeepTheOverlappingPacketsWithGranulesFromThePreSkip() throws Exception {
+        File source = fixture();
+        OggStream original = OggUtil.readPackets(ByteBuffer.wrap(Files.readAllBytes(source.toPath())), "voice.opus");
+        File target = Files.createTempFile("voice", ".opus").toFile();
+        try (DecodedOpus decoded = decoder.decode(source, new CancellationToken()).block(TIMEOUT)) {
+            assertNotNull(decoded);
+            // the tone, starting and ending within packets 20 and 59
+            decoded.writeOgg(target, List.of(new AudioSegment(20 * PCM_PACKET_SAMPLES + 10,
+                    60 * PCM_PACKET_SAMPLES - 10)));
+            ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(target.toPath()));
+            OggStream reread = OggUtil.readPackets(written, target.getName());
+
+            assertEquals(original.packets().subList(0, 2), reread.packets().subList(0, 2));
+            assertEquals(original.packets().subList(2 + 20, 2 + 60), reread.packets().subList(2, reread.packets().size()));
+            assertEquals(preSkip(original) + 40L * PACKET_SAMPLES, lastGranule(written));
+        } finally {
+            Files.delete(target.toPath());
+        }
+    }
+
+    @Test
+    void otherFormatsAreLeftToFfmpeg() throws Exception {
+        File source = Files.createTempFile("voice", ".mp3").toFile();
+        try {
+            Files.write(source.toPath(), new byte[]{'I', 'D', '3', 4, 0, 0, 0, 0, 0, 0});
+
+            assertEquals(null, decoder.decode(source, new CancellationToken()).block(TIMEOUT));
+            assertEquals(0, audioBufferManager.getStatus().reservedBytes());
+        } finally {
+            Files.delete(source.toPath());
+        }
+    }
+
+    private static int preSkip(OggStream stream) {
+        ByteBuffer head = stream.packets().get(0);
+        return head.duplicate().order(ByteOrder.LITTLE_ENDIAN).getShort(head.position() + 10) & 0xFFFF;
+    }
+
+    private static long lastGranule(ByteBuffer ogg) {
+        ByteBuffer buffer = ogg.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int offset = 0;
+        long granule = -1;
+        while (offset < buffer.limit()) {
+            granule = buffer.getLong(offset + 6);
+            int segments = buffer.get(offset + 26) & 0xFF;
+            int size = 27 + segments;
+            for (int i = 0; i < segments; i++) {
+                size += buffer.get(offset + 27 + i) & 0xFF;
+            }
+            offset += size;
+        }
+        return granule;
+    }
+
+    private static ByteBuffer packet(int config, int code, int... rest) {
+        ByteBuffer packet = ByteBuffer.allocate(1 + rest.length).put((byte) (config << 3 | code));
+        for (int b : rest) {
+            packet.put((byte) b);
+        }
+        return packet.flip();
+    }
+
+    private static ByteBuffer head(int channels, int family, int streams, int coupled) {
+        ByteBuffer head = ByteBuffer.allocate(family == 0 ? 19 : 21 + channels).order(ByteOrder.LITTLE_ENDIAN)
+                .put("OpusHead".getBytes()).put((byte) 1).put((byte) channels).putShort((short) 312)
+                .putInt(16000).putShort((short) 0).put((byte) family);
+        if (family != 0) {
+            head.put((byte) streams).put((byte) coupled);
+            for (int i = 0; i < channels; i++) {
+                head.put((byte) i);
+            }
+        }
+        return head.flip();
+    }
+
+    private static File fixture() throws Exception {
+        return new File(Objects.requireNonNull(OggOpusDecoderTest.class.getResource("/audio/voice.opus")).toURI());
+    }
+}
@@ -0,0 +1,78 @@
+package ua.ai_interviewer.converter;
+
+import org.junit.jupiter.api.Test;
+import ua.ai_interviewer.dto.audio.AudioSegment;
+import ua.ai_interviewer.dto.audio.OggStream;
+import ua.ai_interviewer.enums.AudioProfile;
+import ua.ai_interviewer.service.AudioBufferManager;
+import ua.ai_interviewer.service.CancellationToken;
+import ua.ai_interviewer.util.OggUtil;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OggOpusEncoderTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final OggOpusEncoder encoder = new OggOpusEncoder();
+    private final OggOpusDecoder decoder = new OggOpusDecoder(new AudioBufferManager(1 << 20, 300), true);
+
+    @Test
+    void segmentsAreEncodedToAStreamTheDecoderReads() throws Exception {
+        ShortBuffer samples = tone(16000);
+        // 0.3 s and 0.25 s of speech, 8800 samples: 27.5 frames of 20 ms
+        List<AudioSegment> speech = List.of(new AudioSegment(1000, 5800), new AudioSegment(9000, 13000));
+        File target = Files.createTempFile("speech", ".ogg").toFile();
+        try {
+            encoder.encode(target, samples, speech, AudioProfile.SPEECH, new CancellationToken());
+
+            ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(target.toPath()));
+            OggStream stream = OggUtil.readPackets(written, target.getName());
+            assertEquals(2 + 28, stream.packets().size());
+            assertTrue(OggOpusDecoder.isSingleStream(stream.packets().get(0)));
+            int preSkip = written.order(ByteOrder.LITTLE_ENDIAN).getShort(28 + 10);
+            assertEquals(preSkip + 8800L * 3, lastGranule(written));
+
+            try (DecodedOpus decoded = decoder.decode(target, new CancellationToken()).block(TIMEOUT)) {
+                assertNotNull(decoded);
+                assertEquals(28 * 320, decoded.samples().remaining());
+            }
+        } finally {
+            Files.delete(target.toPath());
+        }
+    }
+
+    private static ShortBuffer tone(int length) {
+        ShortBuffer samples = ShortBuffer.allocate(length);
+        for (int i = 0; i < length; i++) {
+            samples.put((short) (8000 * Math.sin(2 * Math.PI * 440 * i / 16000.0)));
+        }
+        return samples.flip();
+    }
+
+    private static long lastGranule(ByteBuffer ogg) {
+        ByteBuffer buffer = ogg.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int offset = 0;
+        long granule = -1;
+        while (offset < buffer.limit()) {
+            granule = buffer.getLong(offset + 6);
+            int segments = buffer.get(offset + 26) & 0xFF;
+            int size = 27 + segments;
+            for (int i = 0; i < segments; i++) {
+                size += buffer.get(offset + 27 + i) & 0xFF;
+            }
+            offset += size;
+        }
+        return granule;
+    }
+}
@@ -0,0 +1,68 @@
+package ua.ai_interviewer.converter;
+
+import org.junit.jupiter.api.Test;
+import ua.ai_interviewer.dto.audio.AudioSegment;
+
+import java.nio.ShortBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VoiceActivityDetectorTest {
+
+    private static final int SAMPLE_RATE = 16000;
+
+    private final VoiceActivityDetector detector = new VoiceActivityDetector(20, -40, 300, 100, 100);
+
+    @Test
+    void silenceHasNoSpeech() {
+        assertTrue(detector.detectSpeech(ShortBuffer.allocate(3 * SAMPLE_RATE), SAMPLE_RATE).isEmpty());
+    }
+
+    @Test
+    void shortPauseDoesNotSplitSpeech() {
+        ShortBuffer samples = ShortBuffer.allocate(3 * SAMPLE_RATE);
+        tone(samples, 500, 1000);
+        tone(samples, 1200, 1500);
+
+        assertEquals(List.of(new AudioSegment(sample(400), sample(1600))),
+                detector.detectSpeech(samples, SAMPLE_RATE));
+    }
+
+    @Test
+    void longPauseSplitsSpeechIntoPaddedSegments() {
+        ShortBuffer samples = ShortBuffer.allocate(3 * SAMPLE_RATE);
+        tone(samples, 500, 1000);
+        tone(samples, 2000, 2500);
+
+        assertEquals(List.of(new AudioSegment(sample(400), sample(1100)), new AudioSegment(sample(1900), sample(2600))),
+                detector.detectSpeech(samples, SAMPLE_RATE));
+    }
+
+    @Test
+    void paddingStopsAtTheEnds() {
+        ShortBuffer samples = ShortBuffer.allocate(SAMPLE_RATE);
+        tone(samples, 0, 1000);
+
+        assertEquals(List.of(new AudioSegment(0, SAMPLE_RATE)), detector.detectSpeech(samples, SAMPLE_RATE));
+    }
+
+    @Test
+    void clickShorterThanSpeechIsDropped() {
+        ShortBuffer samples = ShortBuffer.allocate(3 * SAMPLE_RATE);
+        tone(samples, 1000, 1020);
+
+        assertTrue(detector.detectSpeech(samples, SAMPLE_RATE).isEmpty());
+    }
+
+    private static void tone(ShortBuffer samples, int fromMillis, int toMillis) {
+        for (int i = sample(fromMillis); i < sample(toMillis); i++) {
+            samples.put(i, (short) (0.3 * Short.MAX_VALUE * Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE)));
+        }
+    }
+
+    private static int sample(int millis) {
+        return SAMPLE_RATE * millis / 1000;
+    }
+}
@@ -0,0 +1,51 @@
+package ua.ai_interviewer.converter;
+
+import org.junit.jupiter.api.Test;
+import ua.ai_interviewer.dto.audio.AudioSegment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VoicePreprocessorTest {
+
+    // chunks of 1 s, i.e. 16000 samples, overlapping by 200 ms, i.e. 3200 samples
+    private final VoicePreprocessor preprocessor = preprocessor(1, 200);
+
+    @Test
+    void shortSpeechIsOneChunk() {
+        List<AudioSegment> chunks = preprocessor.planChunks(List.of(new AudioSegment(100, 8000),
+                new AudioSegment(9000, 15000)));
+
+        assertEquals(List.of(new AudioSegment(100, 15000)), chunks);
+    }
+
+    @Test
+    void chunksAreCutInTheMiddleOfSilence() {
+        List<AudioSegment> chunks = preprocessor.planChunks(List.of(new AudioSegment(0, 10000),
+                new AudioSegment(12000, 20000), new AudioSegment(22000, 30000)));
+
+        assertEquals(List.of(new AudioSegment(0, 11000), new AudioSegment(11000, 21000),
+                new AudioSegment(21000, 30000)), chunks);
+    }
+
+    @Test
+    void continuousSpeechIsCutWithOverlap() {
+        List<AudioSegment> chunks = preprocessor.planChunks(List.of(new AudioSegment(0, 40000)));
+
+        assertEquals(List.of(new AudioSegment(0, 19200), new AudioSegment(12800, 32000),
+                new AudioSegment(25600, 40000)), chunks);
+    }
+
+    @Test
+    void overlapOfHalfAChunkIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> preprocessor(1, 500));
+        assertThrows(IllegalArgumentException.class, () -> preprocessor(1, 800));
+        assertThrows(IllegalArgumentException.class, () -> preprocessor(0, 0));
+    }
+
+    private static VoicePreprocessor preprocessor(int chunkSeconds, int chunkOverlapMillis) {
+        return new VoicePreprocessor(null, null, null, null, null, chunkSeconds, chunkOverlapMillis);
+    }
+}
@@ -0,0 +1,150 @@
+package ua.ai_interviewer.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class AudioBufferManagerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final AudioBufferManager manager = new AudioBufferManager(100, 300);
+
+    @Test
+    void readsFileIntoBudgetedBuffer() throws Exception {
+        File file = Files.createTempFile("audio", ".bin").toFile();
+        try {
+            Files.write(file.toPath(), new byte[]{1, 2, 3, 4});
+            try (AudioBuffer buffer = manager.read(file).block(TIMEOUT)) {
+                ByteBuffer content = buffer.nioBuffer();
+                byte[] bytes = new byte[content.remaining()];
+                content.get(bytes);
+                assertArrayEquals(new byte[]{1, 2, 3, 4}, bytes);
+                assertEquals(4, manager.getStatus().reservedBytes());
+            }
+            assertEquals(0, manager.getStatus().reservedBytes());
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    void waitsForBudgetWithoutBlockingTheSubscriber() throws Exception {
+        AudioBuffer first = manager.allocate(80).block(TIMEOUT);
+        CompletableFuture<AudioBuffer> second = manager.allocate(50).toFuture();
+
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+        assertEquals(1, manager.getStatus().waiting());
+
+        first.release();
+        AudioBuffer granted = second.get(5, TimeUnit.SECONDS);
+        assertEquals(50, granted.size());
+        assertEquals(50, manager.getStatus().reservedBytes());
+        granted.release();
+        assertEquals(0, manager.getStatus().reservedBytes());
+    }
+
+    @Test
+    void cancelledWaiterLetsLaterOnesThrough() throws Exception {
+        AudioBuffer first = manager.allocate(80).block(TIMEOUT);
+        Disposable cancelled = manager.allocate(60).subscribe();
+        CompletableFuture<AudioBuffer> later = manager.allocate(20).toFuture();
+
+        Thread.sleep(100);
+        assertFalse(later.isDone());
+        cancelled.dispose();
+
+        later.get(5, TimeUnit.SECONDS).release();
+        first.release();
+        assertEquals(0, manager.getStatus().reservedBytes());
+        assertEquals(0, manager.getStatus().waiting());
+    }
+
+    @Test
+    void requestLargerThanBudgetWaitsForEverythingElse() throws Exception {
+        AudioBuffer held = manager.allocate(10).block(TIMEOUT);
+        CompletableFuture<AudioBuffer> large = manager.allocate(150).toFuture();
+
+        Thread.sleep(100);
+        assertFalse(large.isDone());
+        held.release();
+
+        AudioBuffer granted = large.get(5, TimeUnit.SECONDS);
+        assertEquals(150, granted.size());
+        assertEquals(100, manager.getStatus().reservedBytes());
+        granted.release();
+        assertEquals(0, manager.getStatus().reservedBytes());
+    }
+
+    @Test
+    void wrappedAudioIsCorrectedToItsActualSize() {
+        AudioBuffer voice = manager.wrap(40, Mono.just(ByteBuffer.allocate(25)))
+                .block(TIMEOUT);
+        assertEquals(25, manager.getStatus().reservedBytes());
+        voice.release();
+        assertEquals(0, manager.getStatus().reservedBytes());
+    }
+
+    @Test
+    void reservationGrantedToCancelledSubscriberIsGivenBack() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            AudioBuffer held = manager.allocate(100).block(TIMEOUT);
+            Disposable waiting = manager.allocate(100).subscribeWith(new Releasing());
+
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(held::release),
+                    CompletableFuture.runAsync(waiting::dispose)
+            ).join();
+
+            awaitNothingReserved(i);
+        }
+    }
+
+    @Test
+    void wrappedAudioOfCancelledSubscriberIsReleased() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            AudioBuffer held = manager.allocate(100).block(TIMEOUT);
+            Disposable waiting = manager.wrap(100, Mono.fromCallable(() -> ByteBuffer.allocate(50)))
+                    .subscribeWith(new Releasing());
+
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(held::release),
+                    CompletableFuture.runAsync(waiting::dispose)
+            ).join();
+
+            awaitNothingReserved(i);
+        }
+    }
+
+    private void awaitNothingReserved(int round) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (manager.getStatus().reservedBytes() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, manager.getStatus().reservedBytes(), "budget lost in round " + round);
+    }
+
+    /**
+     * Owns what it receives, also after it has been disposed, unlike a lambda subscriber that drops it.
+     */
+    private static final class Releasing extends BaseSubscriber<AudioBuffer> {
+
+        @Override
+        protected void hookOnNext(AudioBuffer buffer) {
+            buffer.release();
+        }
+    }
+}
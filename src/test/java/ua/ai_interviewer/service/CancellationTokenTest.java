@@ -0,0 +1,83 @@
+package ua.ai_interviewer.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ua.ai_interviewer.exception.TurnCancelledException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class CancellationTokenTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final CancellationToken token = new CancellationToken();
+
+    @Test
+    void cancelRunsCallbacksOnce() {
+        AtomicInteger runs = new AtomicInteger();
+        token.onCancel(runs::incrementAndGet);
+
+        assertTrue(token.cancel("reset"));
+        assertFalse(token.cancel("language"));
+        assertEquals(1, runs.get());
+        assertEquals("reset", token.getReason());
+    }
+
+    @Test
+    void callbackRegisteredAfterCancelRunsAtOnce() {
+        token.cancel("reset");
+        AtomicBoolean ran = new AtomicBoolean();
+
+        token.onCancel(() -> ran.set(true));
+
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void unregisteredCallbackDoesNotRun() {
+        AtomicBoolean ran = new AtomicBoolean();
+        Disposable registration = token.onCancel(() -> ran.set(true));
+
+        registration.dispose();
+        token.cancel("reset");
+
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void writeIsSkippedOnceCancelled() {
+        AtomicBoolean written = new AtomicBoolean();
+        token.cancel("reset");
+
+        assertThrows(TurnCancelledException.class, () -> token.runUnlessCancelled(() -> written.set(true)));
+        assertFalse(written.get());
+    }
+
+    @Test
+    void boundSourceFailsWhenCancelled() {
+        Sinks.One<String> reply = Sinks.one();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        token.bind(reply.asMono()).subscribe(value -> fail("Cancelled reply emitted " + value), error::set);
+
+        token.cancel("reset");
+
+        assertTrue(error.get() instanceof TurnCancelledException);
+        assertEquals(0, reply.currentSubscriberCount());
+    }
+
+    @Test
+    void boundSourceCompletesUnlessCancelled() {
+        assertEquals("reply", token.bind(Mono.just("reply")).block(TIMEOUT));
+    }
+}
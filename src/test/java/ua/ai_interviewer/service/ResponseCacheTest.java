@@ -0,0 +1,88 @@
+package ua.ai_interviewer.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.enums.ChatGPTModel;
+import ua.ai_interviewer.enums.Language;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+
+    private final AudioBufferManager audioBufferManager = new AudioBufferManager(1000, 300);
+    private final ResponseCache cache = new ResponseCache(true, 10, 200, Duration.ofHours(1), 100);
+
+    @Test
+    void cachedVoiceKeepsItsShareOfTheBudget() {
+        ResponseCache.Key key = key("hello");
+        cache.putText(key, "Hi");
+        AudioBuffer voice = synthesized(60);
+        cache.putVoice(key, "Hi", voice);
+        voice.release();
+
+        assertEquals(60, audioBufferManager.getStatus().reservedBytes());
+        assertEquals(60, cache.getStatus().voiceBytes());
+
+        AudioBuffer cached = cache.getVoice(key, "Hi").orElseThrow();
+        assertEquals(60, cached.size());
+        cached.release();
+        assertEquals(60, audioBufferManager.getStatus().reservedBytes());
+    }
+
+    @Test
+    void voicesBeyondTheByteLimitAreDroppedLeastRecentlyUsedFirst() {
+        ResponseCache.Key first = key("first");
+        ResponseCache.Key second = key("second");
+        cache.putText(first, "One");
+        cache.putText(second, "Two");
+        putVoice(first, "One", 60);
+        putVoice(second, "Two", 60);
+
+        assertEquals(Optional.empty(), cache.getVoice(first, "One"));
+        assertTrue(cache.get(first).isPresent());
+        assertEquals(60, cache.getStatus().voiceBytes());
+        assertEquals(60, audioBufferManager.getStatus().reservedBytes());
+    }
+
+    @Test
+    void voiceLargerThanTheLimitIsNotCached() {
+        ResponseCache.Key key = key("long");
+        cache.putText(key, "Long");
+        putVoice(key, "Long", 150);
+
+        assertEquals(Optional.empty(), cache.getVoice(key, "Long"));
+        assertEquals(0, audioBufferManager.getStatus().reservedBytes());
+    }
+
+    @Test
+    void evictedEntryGivesItsVoiceBack() {
+        ResponseCache small = new ResponseCache(true, 1, 200, Duration.ofHours(1), 100);
+        small.putText(key("a"), "A");
+        AudioBuffer voice = synthesized(40);
+        small.putVoice(key("a"), "A", voice);
+        voice.release();
+
+        small.putText(key("b"), "B");
+        assertEquals(0, small.getStatus().voiceBytes());
+        assertEquals(0, audioBufferManager.getStatus().reservedBytes());
+    }
+
+    private void putVoice(ResponseCache.Key key, String text, int bytes) {
+        AudioBuffer voice = synthesized(bytes);
+        cache.putVoice(key, text, voice);
+        voice.release();
+    }
+
+    private AudioBuffer synthesized(int bytes) {
+        return audioBufferManager.wrap(bytes, Mono.just(ByteBuffer.allocate(bytes))).block(Duration.ofSeconds(5));
+    }
+
+    private static ResponseCache.Key key(String prompt) {
+        return new ResponseCache.Key(prompt, Language.values()[0], ChatGPTModel.values()[0]);
+    }
+}
@@ -0,0 +1,113 @@
+package ua.ai_interviewer.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import ua.ai_interviewer.dto.admin.SpeechToTextStatus;
+import ua.ai_interviewer.enums.Language;
+import ua.ai_interviewer.enums.UpstreamLane;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpeechToTextRouterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final List<String> calls = new ArrayList<>();
+
+    @Test
+    void fastestProviderFittingTheClipIsPicked() {
+        SpeechToTextRouter router = router(provider("slow", 60, 0.5, false),
+                provider("fast", 60, 0.1, false), provider("short", 5, 0.01, false));
+
+        assertEquals("fast", transcribe(router, 30));
+        assertEquals("short", transcribe(router, 3));
+    }
+
+    @Test
+    void failedCallIsRetriedOnceWithTheNextProvider() {
+        SpeechToTextRouter router = router(provider("first", 60, 0.1, true),
+                provider("second", 60, 0.2, true), provider("third", 60, 0.3, false));
+
+        assertThrows(IllegalStateException.class, () -> transcribe(router, 10));
+        assertEquals(List.of("first", "second"), calls);
+    }
+
+    @Test
+    void failingProviderFallsBehindHealthyOnes() {
+        SpeechToTextRouter router = router(provider("flaky", 60, 0.1, true), provider("steady", 60, 0.3, false));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("steady", transcribe(router, 10));
+        }
+        calls.clear();
+        assertEquals("steady", transcribe(router, 10));
+        assertEquals(List.of("steady"), calls);
+    }
+
+    @Test
+    void waitForThePermitIsNotTimed() {
+        SpeechToTextRouter router = router(provider("only", 60, 0.1, false));
+
+        String text = router.transcribe(10, provider -> provider.transcribe(1, null, null),
+                        (provider, call) -> Mono.delay(Duration.ofMillis(500)).then(call))
+                .block(TIMEOUT);
+
+        assertEquals("only", text);
+        SpeechToTextStatus status = router.getStatus().get(0);
+        assertEquals(1, status.calls());
+        // 500 ms of waiting for 10 s of speech would have raised the factor by 0.2 * 0.05
+        assertTrue(status.realTimeFactor() < 0.1, "real-time factor " + status.realTimeFactor());
+    }
+
+    private String transcribe(SpeechToTextRouter router, double speechSeconds) {
+        return router.transcribe(speechSeconds, provider -> provider.transcribe(1, null, null),
+                        (provider, call) -> call)
+                .block(TIMEOUT);
+    }
+
+    private SpeechToTextRouter router(SpeechToTextProvider... providers) {
+        return new SpeechToTextRouter(List.of(providers), 0.5, Duration.ofHours(1));
+    }
+
+    private SpeechToTextProvider provider(String name, double maxClipSeconds, double realTimeFactor, boolean failing) {
+        return new SpeechToTextProvider() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public UpstreamLane getLane() {
+                return UpstreamLane.TRANSCRIPTION;
+            }
+
+            @Override
+            public double getMaxClipSeconds() {
+                return maxClipSeconds;
+            }
+
+            @Override
+            public double getInitialRealTimeFactor() {
+                return realTimeFactor;
+            }
+
+            @Override
+            public Mono<String> transcribe(long chatId, File audio, Language language) {
+                return Mono.fromCallable(() -> {
+                    calls.add(name);
+                    if (failing) {
+                        throw new IllegalStateException(name + " failed");
+                    }
+                    return name;
+                });
+            }
+        };
+    }
+}
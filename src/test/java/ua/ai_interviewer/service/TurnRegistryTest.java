@@ -0,0 +1,59 @@
+package ua.ai_interviewer.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TurnRegistryTest {
+
+    private final TurnRegistry registry = new TurnRegistry();
+
+    @Test
+    void newTurnSupersedesTheChatsTurnInFlight() {
+        TurnRegistry.Turn first = registry.open("a", 1);
+        TurnRegistry.Turn second = registry.open("a", 1);
+
+        assertEquals("superseded", first.token().getReason());
+        assertFalse(second.token().isCancelled());
+        assertEquals(1, registry.getInFlight());
+        assertEquals(1, registry.getCancelled());
+    }
+
+    @Test
+    void cancelStopsOnlyTheTurnOfThatBotAndChat() {
+        TurnRegistry.Turn turn = registry.open("a", 1);
+        TurnRegistry.Turn otherChat = registry.open("a", 2);
+        TurnRegistry.Turn otherBot = registry.open("b", 1);
+
+        assertTrue(registry.cancel("a", 1, "reset"));
+
+        assertEquals("reset", turn.token().getReason());
+        assertFalse(otherChat.token().isCancelled());
+        assertFalse(otherBot.token().isCancelled());
+        assertEquals(2, registry.getInFlight());
+    }
+
+    @Test
+    void cancelWithoutTurnInFlightDoesNothing() {
+        TurnRegistry.Turn turn = registry.open("a", 1);
+        registry.close("a", 1, turn);
+
+        assertFalse(registry.cancel("a", 1, "reset"));
+        assertFalse(turn.token().isCancelled());
+        assertEquals(0, registry.getCancelled());
+    }
+
+    @Test
+    void closingSupersededTurnKeepsItsSuccessor() {
+        TurnRegistry.Turn first = registry.open("a", 1);
+        TurnRegistry.Turn second = registry.open("a", 1);
+
+        registry.close("a", 1, first);
+
+        assertEquals(1, registry.getInFlight());
+        assertTrue(registry.cancel("a", 1, "reset"));
+        assertTrue(second.token().isCancelled());
+    }
+}
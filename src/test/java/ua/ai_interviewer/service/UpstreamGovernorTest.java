@@ -0,0 +1,79 @@
+package ua.ai_interviewer.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ua.ai_interviewer.config.TelegramBotsProperties;
+import ua.ai_interviewer.dto.telegram.BotDefinition;
+import ua.ai_interviewer.enums.UpstreamLane;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UpstreamGovernorTest {
+
+    private final UpstreamGovernor governor = new UpstreamGovernor(new TelegramBotsProperties(List.of(
+            new BotDefinition("a", "token-a", "bot_a", null, null, null),
+            new BotDefinition("b", "token-b", "bot_b", null, null, null)), null), 1, 1, 1);
+    private final Sinks.Empty<Void> busy = Sinks.empty();
+    private final List<Long> served = new ArrayList<>();
+
+    @Test
+    void servesChatsThatSendFewCallsFirst() {
+        occupy();
+        call("a", 10, 1);
+        call("a", 10, 1);
+        call("a", 10, 1);
+        call("b", 20, 1);
+        assertEquals(4, governor.getQueued(UpstreamLane.CHAT));
+
+        busy.tryEmitEmpty();
+
+        assertEquals(List.of(10L, 20L, 10L, 10L), served);
+        assertEquals(1, governor.getAvailable(UpstreamLane.CHAT));
+    }
+
+    @Test
+    void doesNotChargeChatForCancelledCall() {
+        occupy();
+        Disposable cancelled = call("a", 10, 100);
+        cancelled.dispose();
+        assertEquals(0, governor.getQueued(UpstreamLane.CHAT));
+        call("a", 10, 10);
+        call("b", 20, 10);
+
+        busy.tryEmitEmpty();
+
+        assertEquals(List.of(10L, 20L), served);
+    }
+
+    @Test
+    void permitGrantedToCancelledCallIsHandedBack() {
+        for (int i = 0; i < 2000; i++) {
+            Sinks.Empty<Void> holder = Sinks.empty();
+            governor.withPermit(UpstreamLane.CHAT, holder.asMono()).subscribe();
+            Disposable waiting = governor.withPermit(UpstreamLane.CHAT, "a", 10, 1, 1, Mono.never()).subscribe();
+
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(holder::tryEmitEmpty),
+                    CompletableFuture.runAsync(waiting::dispose)
+            ).join();
+
+            assertEquals(1, governor.getAvailable(UpstreamLane.CHAT), "permit lost in round " + i);
+        }
+    }
+
+    private void occupy() {
+        governor.withPermit(UpstreamLane.CHAT, busy.asMono()).subscribe();
+        assertEquals(0, governor.getAvailable(UpstreamLane.CHAT));
+    }
+
+    private Disposable call(String bot, long chatId, double cost) {
+        return governor.withPermit(UpstreamLane.CHAT, bot, chatId, cost, 1,
+                Mono.fromRunnable(() -> served.add(chatId))).subscribe();
+    }
+}
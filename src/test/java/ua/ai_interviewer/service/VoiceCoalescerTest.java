@@ -0,0 +1,74 @@
+package ua.ai_interviewer.service;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VoiceCoalescerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void noteWithoutOpenBatchIsHandledOnItsOwn() {
+        VoiceCoalescer coalescer = new VoiceCoalescer(Duration.ofSeconds(5), Duration.ofSeconds(10), 3);
+
+        assertFalse(coalescer.join("a", note(1, 1)));
+    }
+
+    @Test
+    void batchClosesAtMaxNotes() {
+        VoiceCoalescer coalescer = new VoiceCoalescer(Duration.ofSeconds(5), Duration.ofSeconds(10), 3);
+        Flux<Message> notes = coalescer.open("a", note(1, 1));
+
+        assertTrue(coalescer.join("a", note(1, 2)));
+        assertTrue(coalescer.join("a", note(1, 3)));
+        assertFalse(coalescer.join("a", note(1, 4)));
+        assertEquals(List.of(1, 2, 3), notes.map(Message::getMessageId).collectList().block(TIMEOUT));
+    }
+
+    @Test
+    void batchClosesWhenNoNoteFollowsWithinWindow() {
+        VoiceCoalescer coalescer = new VoiceCoalescer(Duration.ofMillis(50), Duration.ofSeconds(10), 3);
+        Flux<Message> notes = coalescer.open("a", note(1, 1));
+
+        assertEquals(List.of(1), notes.map(Message::getMessageId).collectList().block(TIMEOUT));
+        assertFalse(coalescer.join("a", note(1, 2)));
+    }
+
+    @Test
+    void batchesAreKeptPerBotAndChat() {
+        VoiceCoalescer coalescer = new VoiceCoalescer(Duration.ofSeconds(5), Duration.ofSeconds(10), 3);
+        coalescer.open("a", note(1, 1));
+
+        assertFalse(coalescer.join("b", note(1, 2)));
+        assertFalse(coalescer.join("a", note(2, 3)));
+        assertTrue(coalescer.join("a", note(1, 4)));
+    }
+
+    @Test
+    void openingBatchClosesPreviousOne() {
+        VoiceCoalescer coalescer = new VoiceCoalescer(Duration.ofSeconds(5), Duration.ofSeconds(10), 3);
+        Flux<Message> previous = coalescer.open("a", note(1, 1));
+        coalescer.open("a", note(1, 2));
+
+        assertEquals(List.of(1), previous.map(Message::getMessageId).collectList().block(TIMEOUT));
+        assertTrue(coalescer.join("a", note(1, 3)));
+    }
+
+    private static Message note(long chatId, int messageId) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        Message message = new Message();
+        message.setChat(chat);
+        message.setMessageId(messageId);
+        return message;
+    }
+}
@@ -0,0 +1,95 @@
+package ua.ai_interviewer.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import ua.ai_interviewer.dto.chatgpt.ChatMessage;
+import ua.ai_interviewer.enums.ChatGPTModel;
+import ua.ai_interviewer.model.Interview;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatGPTRequestEncoderImplTest {
+
+    private final ChatGPTRequestEncoderImpl encoder = new ChatGPTRequestEncoderImpl(new ObjectMapper(), 10);
+
+    @Test
+    void addedMessagesAreEncodedOnce() {
+        Interview interview = interview("a", 6);
+        encode(interview);
+        interview.getConversation().add(message("user", "new"));
+
+        String body = encode(interview);
+
+        assertTrue(body.contains("\"new\""));
+        assertEquals(13, encoder.getStatus().reusedMessages() + encoder.getStatus().encodedMessages());
+        assertEquals(6, encoder.getStatus().reusedMessages());
+    }
+
+    @Test
+    void editOfAnOldMessageIsNotSentStale() {
+        Interview interview = interview("a", 8);
+        encode(interview);
+        interview.getConversation().set(0, message("user", "edited"));
+
+        String body = encode(interview);
+
+        assertTrue(body.contains("\"edited\""));
+        assertFalse(body.contains("\"message 0\""));
+    }
+
+    @Test
+    void leastRecentlyUsedConversationsAreEvictedOverTheLimit() {
+        for (int i = 0; i < 11; i++) {
+            encode(interview("interview " + i, 1));
+        }
+
+        assertTrue(encoder.getStatus().conversations() <= 10);
+        encode(interview("interview 10", 1));
+        assertEquals(1, encoder.getStatus().reusedMessages());
+    }
+
+    @Test
+    void uncachedRequestLeavesCacheAlone() {
+        Interview interview = interview("warmup", 2);
+        DataBuffer buffer = encoder.encodeUncached(interview, false, ChatGPTModel.values()[0], 100);
+        String uncached;
+        try {
+            uncached = buffer.toString(StandardCharsets.UTF_8);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+
+        assertEquals(0, encoder.getStatus().conversations());
+        assertEquals(0, encoder.getStatus().encodedMessages());
+        assertEquals(encode(interview), uncached);
+    }
+
+    private String encode(Interview interview) {
+        DataBuffer buffer = encoder.encode(interview, false, ChatGPTModel.values()[0], 100);
+        try {
+            return buffer.toString(StandardCharsets.UTF_8);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static Interview interview(String id, int messages) {
+        List<ChatMessage> conversation = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            conversation.add(message(i % 2 == 0 ? "user" : "assistant", "message " + i));
+        }
+        return Interview.builder().id(id).conversation(conversation).build();
+    }
+
+    private static ChatMessage message(String role, String content) {
+        return ChatMessage.builder().role(role).content(content).build();
+    }
+}
@@ -0,0 +1,54 @@
+package ua.ai_interviewer.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogRedactorTest {
+
+    @Test
+    void secretsAddressesAndNumbersAreMasked() {
+        assertEquals("token <secret>, key <secret>, mail <email>, call <number>",
+                LogRedactor.redact("token 123456789:AAHdqTcvCH1vGWJxfSeofSAs0K5PALDsaw0, "
+                        + "key sk-abcdefghijklmnopqrstuvwx, mail jane.doe@example.com, call +380 (67) 123-45-67"));
+        assertEquals("Authorization: <secret>", LogRedactor.redact("Authorization: Bearer abc.def-123"));
+        assertNull(LogRedactor.redact(null));
+    }
+
+    @Test
+    void maskingWithoutTruncationAddsNoSuffix() {
+        String redacted = LogRedactor.redact("my card is 4111 1111 1111 1111, thanks", 40);
+
+        assertEquals("my card is <number>, thanks", redacted);
+    }
+
+    @Test
+    void longTextIsTruncatedWithItsLength() {
+        String redacted = LogRedactor.redact("a".repeat(50), 20);
+
+        assertEquals("a".repeat(20) + "…(50 chars)", redacted);
+    }
+
+    @Test
+    void numberAcrossTheCutIsMaskedWhole() {
+        String text = "call me at +380 67 123 45 67 tomorrow " + "x".repeat(40);
+
+        String redacted = LogRedactor.redact(text, 16);
+
+        assertEquals("call me at <numb…(" + text.length() + " chars)", redacted);
+        assertFalse(redacted.contains("380"));
+    }
+
+    @Test
+    void secretAcrossTheCutIsMaskedWhole() {
+        String text = "key sk-abcdefghijklmnopqrstuvwxyz and more text " + "y".repeat(40);
+
+        String redacted = LogRedactor.redact(text, 12);
+
+        assertTrue(redacted.startsWith("key <secret>"), redacted);
+        assertFalse(redacted.contains("sk-"));
+    }
+}
@@ -0,0 +1,152 @@
+package ua.ai_interviewer.util;
+
+import org.junit.jupiter.api.Test;
+import ua.ai_interviewer.dto.audio.OggPacket;
+import ua.ai_interviewer.dto.audio.OggStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OggUtilTest {
+
+    private static final int FIXTURE_SERIAL = 0x1234ABCD;
+    private static final int FIXTURE_PACKETS = 80;
+    private static final int PACKET_SAMPLES = 960;
+
+    @Test
+    void readsPacketsOfFirstStreamAcrossPages() throws Exception {
+        OggStream stream = OggUtil.readPackets(fixture(), "voice.opus");
+
+        assertEquals(FIXTURE_SERIAL, stream.serial());
+        assertEquals(2 + FIXTURE_PACKETS, stream.packets().size());
+        assertTrue(startsWith(stream.packets().get(0), "OpusHead"));
+        assertTrue(startsWith(stream.packets().get(1), "OpusTags"));
+    }
+
+    @Test
+    void writtenPacketsReadBackWithTheirGranules() throws Exception {
+        OggStream stream = OggUtil.readPackets(fixture(), "voice.opus");
+        List<ByteBuffer> audio = stream.packets().subList(2, stream.packets().size());
+
+        File target = Files.createTempFile("voice", ".opus").toFile();
+        try {
+            OggUtil.writePackets(target, stream.serial(), stream.packets().subList(0, 2), granules(audio));
+            ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(target.toPath()));
+            OggStream reread = OggUtil.readPackets(written, target.getName());
+
+            assertEquals(stream.serial(), reread.serial());
+            assertEquals(stream.packets(), reread.packets());
+            List<Page> pages = pages(written);
+            assertEquals(0, pages.get(0).granule());
+            assertEquals(0, pages.get(1).granule());
+            assertEquals((long) FIXTURE_PACKETS * PACKET_SAMPLES, pages.get(pages.size() - 1).granule());
+            for (int i = 0; i < pages.size(); i++) {
+                assertEquals(i, pages.get(i).sequence());
+                assertEquals(i == 0, (pages.get(i).type() & 0x02) != 0);
+                assertEquals(i == pages.size() - 1, (pages.get(i).type() & 0x04) != 0);
+            }
+        } finally {
+            Files.delete(target.toPath());
+        }
+    }
+
+    @Test
+    void packetsOfWholeSegmentsAndLongerThanAPageRoundTrip() throws Exception {
+        List<ByteBuffer> packets = List.of(filled(510, 1), filled(0, 2), filled(140_000, 3), filled(40, 4));
+
+        File target = Files.createTempFile("long", ".ogg").toFile();
+        try {
+            OggUtil.writePackets(target, 7, List.of(filled(19, 9)), granules(packets));
+            ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(target.toPath()));
+            OggStream reread = OggUtil.readPackets(written, target.getName());
+
+            List<ByteBuffer> expected = new ArrayList<>(List.of(filled(19, 9)));
+            expected.addAll(packets);
+            assertEquals(expected, reread.packets());
+            List<Page> pages = pages(written);
+            assertTrue(pages.stream().anyMatch(page -> (page.type() & 0x01) != 0));
+            // a page on which no packet ends carries no granule position
+            assertTrue(pages.stream().anyMatch(page -> page.granule() == -1));
+        } finally {
+            Files.delete(target.toPath());
+        }
+    }
+
+    @Test
+    void damagedPageIsRejected() throws Exception {
+        ByteBuffer ogg = fixture();
+        ogg.put(200, (byte) (ogg.get(200) ^ 0x10));
+
+        assertThrows(IOException.class, () -> OggUtil.readPackets(ogg, "voice.opus"));
+    }
+
+    @Test
+    void contentEndingWithinAPacketIsRejected() throws Exception {
+        ByteBuffer ogg = fixture();
+        List<Page> pages = pages(ogg);
+        // the fixture continues packets across pages, cut the file after the first such page
+        int cut = pages.stream()
+                .filter(page -> (page.type() & 0x01) != 0)
+                .mapToInt(Page::offset)
+                .findFirst()
+                .orElse(0);
+        assertTrue(cut > 0);
+
+        assertThrows(IOException.class, () -> OggUtil.readPackets(ogg.slice(0, cut), "voice.opus"));
+    }
+
+    private static List<OggPacket> granules(List<ByteBuffer> packets) {
+        List<OggPacket> result = new ArrayList<>();
+        for (int i = 0; i < packets.size(); i++) {
+            result.add(new OggPacket(packets.get(i), (long) (i + 1) * PACKET_SAMPLES));
+        }
+        return result;
+    }
+
+    private static List<Page> pages(ByteBuffer ogg) {
+        ByteBuffer buffer = ogg.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        List<Page> pages = new ArrayList<>();
+        int offset = 0;
+        while (offset < buffer.limit()) {
+            int segments = buffer.get(offset + 26) & 0xFF;
+            int size = 27 + segments;
+            for (int i = 0; i < segments; i++) {
+                size += buffer.get(offset + 27 + i) & 0xFF;
+            }
+            pages.add(new Page(offset, buffer.get(offset + 5), buffer.getLong(offset + 6), buffer.getInt(offset + 18)));
+            offset += size;
+        }
+        return pages;
+    }
+
+    private static ByteBuffer filled(int size, int value) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (value + i);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static boolean startsWith(ByteBuffer packet, String prefix) {
+        return packet.remaining() >= prefix.length()
+                && packet.slice(packet.position(), prefix.length()).equals(ByteBuffer.wrap(prefix.getBytes()));
+    }
+
+    private static ByteBuffer fixture() throws Exception {
+        File file = new File(Objects.requireNonNull(OggUtilTest.class.getResource("/audio/voice.opus")).toURI());
+        return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    }
+
+    private record Page(int offset, int type, long granule, int sequence) {
+    }
+}